@@ -1,19 +1,41 @@
 package Pathfinding;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Stack;
 
 /**
+ * A* search with the octile distance as heuristic.
+ * <p>
+ * The state of every cell is kept in flat arrays whose order is given by a CellLayout, and the open set is a bucket
+ * queue keyed by f cost. Nodes with equal f costs are taken in the order of the selected TieBreak.
+ *
  * @author Ian Sodersjerna
  * @date 6/30/2020
  */
 public class AStar extends Algorithm {
-    private final Node[][] nodeMap;
-    private final ArrayList<Node> open;
-    private final ArrayList<Node> closed;
-    private final ArrayList<Node> neighbors;
-    private Node current;
+    private static final byte NEW = 0, OPEN = 1, CLOSED = 2;
+
+    /**
+     * How to choose among open nodes with the lowest f cost.
+     */
+    public enum TieBreak {
+        /**
+         * Take the node closest to the end, which is the one furthest from the start. Each bucket of the open set is
+         * kept as a heap on h cost.
+         */
+        LOW_H,
+        /**
+         * Take the node added last, which usually continues from the node just expanded. Constant time per node, the
+         * default.
+         */
+        LIFO
+    }
+
+    private TieBreak tieBreak;
+    private CellLayout layout;
+    private SearchStatePool pool;
+    private SearchState state; // Distance from the starting node, parent and NEW, OPEN or CLOSED of every position
+    private BucketQueue open; // Positions of the nodes to be evaluated, keyed by f cost
+    private int current = -1; // Position of the node being evaluated
     private final Color openColor = Color.green;
     private final Color closedColor = Color.red;
 
@@ -25,78 +47,168 @@ public class AStar extends Algorithm {
      * @param updateWhileRunning if the panel will be updated while running
      */
     public AStar(mapPanel panel, boolean updateWhileRunning) {
+        this(panel, updateWhileRunning, TieBreak.LIFO);
+    }
+
+    /**
+     * Constructor for algorithm with a tie breaking policy.
+     *
+     * @param panel              panel to be used by algorithm
+     * @param updateWhileRunning if the panel will be updated while running
+     * @param tieBreak           how to choose among nodes with equal f cost
+     */
+    public AStar(mapPanel panel, boolean updateWhileRunning, TieBreak tieBreak) {
         super(panel, updateWhileRunning); // Pass panel to super constructor
-        this.nodeMap = new Node[this.size.x][this.size.y];
-        this.open = new ArrayList<>(); // The set of nodes to be evaluated
-        this.closed = new ArrayList<>(); // The set of nodes already evaluated
-        this.current = null; // The node that will be evaluated
-        this.neighbors = new ArrayList<>(); // The set of neighboring nodes to the current node
-        // Create a 2-d Node array and set walls
-        for (int i = 0; i < size.x; i++) {
-            for (int j = 0; j < size.y; j++) {
-                if (map[i][j] == 1) {
-                    this.nodeMap[i][j] = new Node(new Point(i, j), end, true);
-                } else {
-                    this.nodeMap[i][j] = new Node(new Point(i, j), end, false);
-                }
+        this.pool = SearchStatePool.DEFAULT;
+        this.setup(tieBreak, false);
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel.
+     *
+     * @param walls walls of the map, any grid backend.
+     * @param start starting position.
+     * @param end   ending position.
+     */
+    public AStar(Grid walls, Point start, Point end) {
+        this(walls, start, end, TieBreak.LIFO, false, SearchStatePool.DEFAULT);
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel with a tie breaking policy and cell layout.
+     *
+     * @param walls    walls of the map, any grid backend.
+     * @param start    starting position.
+     * @param end      ending position.
+     * @param tieBreak how to choose among nodes with equal f cost.
+     * @param morton   true to keep the search state in Morton (Z-order) instead of row major order.
+     */
+    public AStar(Grid walls, Point start, Point end, TieBreak tieBreak, boolean morton) {
+        this(walls, start, end, tieBreak, morton, SearchStatePool.DEFAULT);
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel, taking the search state from a pool.
+     *
+     * @param walls    walls of the map, any grid backend.
+     * @param start    starting position.
+     * @param end      ending position.
+     * @param tieBreak how to choose among nodes with equal f cost.
+     * @param morton   true to keep the search state in Morton (Z-order) instead of row major order.
+     * @param pool     pool the search state is taken from and returned to once the path is found.
+     */
+    AStar(Grid walls, Point start, Point end, TieBreak tieBreak, boolean morton, SearchStatePool pool) {
+        super(walls, start, end);
+        this.pool = pool;
+        this.setup(tieBreak, morton);
+    }
+
+    /**
+     * Takes the search state from the pool and adds the starting node to the open set.
+     *
+     * @param tieBreak how to choose among nodes with equal f cost.
+     * @param morton   true to use the Morton layout.
+     */
+    private void setup(TieBreak tieBreak, boolean morton) {
+        this.tieBreak = tieBreak;
+        this.layout = morton ? CellLayout.morton(this.size.x, this.size.y) : CellLayout.rowMajor(this.size.x, this.size.y);
+        this.state = this.pool.acquire(this.layout.capacity());
+        this.open = new BucketQueue(28, tieBreak == TieBreak.LOW_H ? BucketQueue.Order.LOWEST_RANK : BucketQueue.Order.LIFO);
+        int s = this.layout.index(this.start.x, this.start.y);
+        this.state.setG(s, 0);
+        this.state.setParent(s, -1);
+        this.state.setFlags(s, OPEN);
+        this.add(s, this.start.x, this.start.y);
+    }
+
+    /**
+     * Returns the tie breaking policy of the search.
+     *
+     * @return the tie breaking policy.
+     */
+    public TieBreak getTieBreak() {
+        return this.tieBreak;
+    }
+
+    /**
+     * Adds a node to the open set keyed by its f cost, ranked by its h cost for LOW_H.
+     *
+     * @param position position of the node.
+     * @param x        x coordinate of the node.
+     * @param y        y coordinate of the node.
+     */
+    private void add(int position, int x, int y) {
+        int hCost = this.hCost(x, y);
+        this.addSampled(this.open, this.state.g(position) + hCost, hCost, position);
+    }
+
+    /**
+     * Octile distance from a cell to the end, the same as distanceBetween.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return h cost of the cell.
+     */
+    private int hCost(int x, int y) {
+        int deltaX = Math.abs(this.end.x - x), deltaY = Math.abs(this.end.y - y);
+        return deltaX > deltaY ? 14 * deltaY + 10 * (deltaX - deltaY) : 14 * deltaX + 10 * (deltaY - deltaX);
+    }
+
+    /**
+     * Generate and print path to panel, then return the search state to its pool.
+     */
+    public void generatePath() throws IllegalArgumentException {
+        try {
+            this.search();
+        } finally {
+            if (this.state != null) {
+                this.pool.release(this.state);
+                this.state = null;
             }
         }
-        this.nodeMap[start.x][start.y].gCost = 0;
-        this.open.add(this.nodeMap[start.x][start.y]);
     }
 
     /**
-     * Generate and print path to panel
+     * Runs the search and stores the path.
      */
-    public void generatePath() throws IllegalArgumentException {
+    private void search() throws IllegalArgumentException {
+        int goal = this.layout.index(this.end.x, this.end.y);
         while (!this.open.isEmpty()) {
-            // Find the node in the open set with the lowest f cost.
-            this.current = this.open.get(0);
-            for (Node n : this.open) {
-                if (n.getFCost() < this.current.getFCost() || n.getFCost() == this.current.getFCost()) {
-                    if (n.hCost < this.current.hCost) {
-                        this.current = n;
-                    }
-                }
+            // Take a node with the lowest f cost, ties are broken by the order of the open set
+            int position = this.pollSampled(this.open);
+            int x = this.layout.x(position), y = this.layout.y(position);
+            if (this.state.flags(position) == CLOSED || this.open.lastKey() != this.state.g(position) + this.hCost(x, y)) {
+                continue; // Stale entry, the node was queued again with a lower cost
+            }
+            this.current = position;
+            // Close the selected node checking if it is the end node
+            this.state.setFlags(position, CLOSED);
+            this.expansions++;
+            if (this.panel != null) {
+                this.setPosition(new Point(x, y), closedColor);
             }
-            // Remove selected node from open set and add it to the closed set checking if it is the end node and clearing neighbors
-            this.open.remove(this.current);
-            this.closed.add(this.current);
-            this.panel.setPosition(current.position, closedColor);
 
-            if (this.current.end) {
+            if (position == goal) {
                 break;
             }
-            this.neighbors.clear();
-            // Populate neighbor set with neighbors
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    // Insure the current node is not added
-                    if (i != 0 || j != 0) {
-                        // If the neighbor is on the board
-                        if ((this.current.position.x + i) >= 0 && (this.current.position.y + j) >= 0 && (this.current.position.x + i) < this.size.x && (this.current.position.y + j) < this.size.y) {
-                            // If the neighbor is inaccessible due to neighboring walls
-                            if ((i != 0 && j != 0) && (this.nodeMap[this.current.position.x + i][this.current.position.y].wall && this.nodeMap[this.current.position.x][this.current.position.y + j].wall)) {
-                                continue;
-                            }
-                            this.neighbors.add(this.nodeMap[this.current.position.x + i][this.current.position.y + j]);
-                        }
-                    }
-                }
-            }
-            //for each neighbor calculate F, G, and H costs and assign parent
-            for (Node n : this.neighbors) {
-                if (n.wall || this.closed.contains(n)) {
+            // For each move the wall grid allows out of the current node calculate F, G, and H costs and assign parent
+            for (int m = this.walls.neighbors(x, y); m != 0; m &= m - 1) {
+                int d = Integer.numberOfTrailingZeros(m);
+                int nx = x + Path.DX[d], ny = y + Path.DY[d];
+                int neighbor = this.layout.index(nx, ny);
+                if (this.state.flags(neighbor) == CLOSED) {
                     continue;
                 }
-                int newCostToNeighbour = this.current.gCost + distanceBetween(n.position, this.current.position);
-                if (!this.open.contains(n) || newCostToNeighbour < n.gCost) {
-                    n.gCost = newCostToNeighbour;
-                    n.setHCost(this.end);
-                    n.parent = this.current;
-                    if (!this.open.contains(n)) {
-                        this.open.add(n);
-                        this.panel.setPosition(n.position, openColor);
+                int newCostToNeighbour = this.state.g(position) + ((d & 1) == 0 ? 10 : 14);
+                if (newCostToNeighbour < this.state.g(neighbor)) {
+                    this.state.setG(neighbor, newCostToNeighbour);
+                    this.state.setParent(neighbor, position);
+                    this.add(neighbor, nx, ny);
+                    if (this.state.flags(neighbor) == NEW) {
+                        this.state.setFlags(neighbor, OPEN);
+                        if (this.panel != null) {
+                            this.setPosition(new Point(nx, ny), openColor);
+                        }
                     }
                 }
             }
@@ -104,83 +216,41 @@ public class AStar extends Algorithm {
                 try {
                     Thread.sleep(1);
                 } catch (InterruptedException e) {
-                    GUI.panelTread.interrupt();
+                    this.stopPanel();
                     return;
                 }
             }
         }
-        if (current == null || !current.end) {
-            GUI.panelTread.interrupt();
-            this.panel.setPosition(this.start, mapPanel.START_COLOR);
-            this.panel.setPosition(this.end, mapPanel.END_COLOR);
-            this.panel.paintComponent(this.panel.getGraphics());
+        if (this.current != goal) {
+            this.stopPanel();
+            this.setPosition(this.start, mapPanel.START_COLOR);
+            this.setPosition(this.end, mapPanel.END_COLOR);
+            this.repaintPanel();
             throw new IllegalArgumentException("course cannot be solved.");
         }
         this.paintPath();
     }
 
     /**
-     * Method to paint the panel the path generated using the colors defined in MapPanel.
-     *
-     * @apiNote evaluate if stack is really optimal here, because it forces mapPanel to have two setPosition methods.
+     * Method to store the path generated as packed cell indices and paint it to the panel using the colors defined in
+     * MapPanel.
      */
     public void paintPath() {
-        GUI.panelTread.interrupt();
-        Stack<Point> path = new Stack<>();
-        while (this.current.parent != null) {
-            path.push(current.position);
-            this.current = this.current.parent;
+        this.stopPanel();
+        int length = 0;
+        for (int p = this.current; p != -1; p = this.state.parent(p)) {
+            length++;
         }
-        while (!path.empty()) {
-            this.panel.setPosition(path.pop(), Color.blue);
+        int[] cells = new int[length];
+        for (int p = this.current; p != -1; p = this.state.parent(p)) {
+            cells[--length] = Path.index(this.layout.x(p), this.layout.y(p), this.size.y);
         }
-        this.panel.setPosition(this.start, mapPanel.START_COLOR);
-        this.panel.setPosition(this.end, mapPanel.END_COLOR);
-        this.panel.paintComponent(this.panel.getGraphics());
-    }
-
-
-    static class Node {
-        private final Point position; //location of the Node on a 2d plane.
-        private boolean wall = false; //boolean value to determine if a wall.
-        private boolean end = false; //boolean value to determine if the ending node
-        private int gCost; //distance from starting node
-        private int hCost; //distance from end node
-        private Node parent = null; // parent of the node.
-
-        /**
-         * Constructor for a node with distance to ending node.
-         *
-         * @param position Location the node is located on a 2-d plane.
-         * @param target   Location of the target to determine hcost(distance from the end node)
-         */
-        public Node(Point position, Point target, boolean wall) {
-            this.position = position;
-            hCost = AStar.distanceBetween(position, target);
-            if(hCost==0){
-                end = true;
-            }
-            this.wall = wall;
-        }
-
-        /**
-         * Calculates the f-cost from the h and g cost.
-         *
-         * @return The F-cost which is the h-cost + the g-cost.
-         */
-        public int getFCost() {
-            return hCost + gCost;
-        }
-
-        /**
-         * Sets the h-cost by getting distance between it and the target.
-         *
-         * @param target Point representing the target.
-         */
-        public void setHCost(Point target) {
-            this.hCost = distanceBetween(position, target);
+        this.path = new Path(cells, this.size.y);
+        for (int i = 1; i < this.path.length(); i++) {
+            this.setPosition(this.path.get(i), Color.blue);
         }
+        this.setPosition(this.start, mapPanel.START_COLOR);
+        this.setPosition(this.end, mapPanel.END_COLOR);
+        this.repaintPanel();
     }
 }
-
-
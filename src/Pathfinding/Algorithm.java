@@ -1,5 +1,7 @@
 package Pathfinding;
 
+import jdk.jfr.EventType;
+
 import javax.swing.*;
 import java.awt.*;
 
@@ -8,24 +10,50 @@ import java.awt.*;
  * @date 6/30/2020
  */
 public abstract class Algorithm implements Runnable {
+    private static final EventType HEAP_OPERATION = EventType.getEventType(SearchEvents.HeapOperation.class);
+
     final mapPanel panel;
-    int[][] map;
+    final Grid walls;
     Point size, start, end;
     boolean updateWhileRunning;
+    Path path;
+    int expansions;
+    private int sampleInterval; // Operations on the open set between samples, 0 if none are recorded
+    private int sampleCountdown; // Operations on the open set left until the next sample
 
     /**
      * Constructor to require MapPanel to be initialized.
      *
      * @param panel MapPanel for reference by algorithm.
      * @param updateWhileRunning if the panel will be updated while running.
+     * @throws IllegalArgumentException Thrown if the map has more cells than Path.cells allows.
      */
     Algorithm(mapPanel panel,boolean updateWhileRunning) {
         this.updateWhileRunning = updateWhileRunning;
         this.panel = panel; // MapPanel to be drawn on and referenced
         this.start = this.panel.getStart(); // Find starting position
         this.end = this.panel.getEnd(); // Find ending position
-        this.map = this.panel.getIntMap();  // get integer map from panel
-        this.size = new Point(map.length, map[0].length); // get size of map
+        this.walls = this.panel.snapshot(); // share the current version of the walls, no copy is made
+        this.size = new Point(walls.getWidth(), walls.getHeight()); // get size of map
+        Path.cells(this.size.x, this.size.y); // Reject maps whose cells can not all be indexed
+    }
+
+    /**
+     * Constructor for running without a panel, such as from the command line.
+     *
+     * @param walls walls of the map, any grid backend.
+     * @param start starting position.
+     * @param end   ending position.
+     * @throws IllegalArgumentException Thrown if the map has more cells than Path.cells allows.
+     */
+    Algorithm(Grid walls, Point start, Point end) {
+        this.updateWhileRunning = false;
+        this.panel = null;
+        this.start = start;
+        this.end = end;
+        this.walls = walls;
+        this.size = new Point(walls.getWidth(), walls.getHeight());
+        Path.cells(this.size.x, this.size.y);
     }
 
     /**
@@ -37,7 +65,7 @@ public abstract class Algorithm implements Runnable {
         try {
             GUI.panelTread = new Thread(panel, "Panel Thread");
             GUI.panelTread.start();
-            this.generatePath();
+            this.findPath();
         } catch (IllegalArgumentException | NullPointerException exception) {
             GUI.panelTread.interrupt();
             JOptionPane.showMessageDialog(panel.getParent(), "Course cannot be solved.");
@@ -50,6 +78,151 @@ public abstract class Algorithm implements Runnable {
      */
     public abstract void generatePath() throws IllegalArgumentException;
 
+    /**
+     * Generates the path, recording the query as a flight recorder event.
+     *
+     * @throws IllegalArgumentException if the course can not be solved.
+     */
+    public void findPath() throws IllegalArgumentException {
+        SearchEvents.Query event = new SearchEvents.Query();
+        event.begin();
+        // Read the interval once per query, and only when a recording wants heap operations
+        this.sampleInterval = HEAP_OPERATION.isEnabled() ? SearchEvents.heapSampleInterval : 0;
+        this.sampleCountdown = this.sampleInterval;
+        try {
+            this.generatePath();
+            event.solved = this.path != null;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.algorithm = this.getClass().getSimpleName();
+                event.width = this.size.x;
+                event.height = this.size.y;
+                event.startX = this.start.x;
+                event.startY = this.start.y;
+                event.endX = this.end.x;
+                event.endY = this.end.y;
+                event.expansions = this.expansions;
+                event.cost = event.solved ? this.getPathCost() : -1;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Returns the path found by the last call to generatePath.
+     *
+     * @return path from start to end, or null if no path has been generated.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the cost of the path found by the last call to generatePath.
+     *
+     * @return cost of the path, using the algorithm's own metric.
+     */
+    public double getPathCost() {
+        return path.getCost();
+    }
+
+    /**
+     * Returns the number of nodes expanded by the last call to generatePath.
+     *
+     * @return number of expanded nodes.
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Sets a position on the panel to the provided color, does nothing when running without a panel.
+     *
+     * @param p Point to be set.
+     * @param c Color to be set.
+     */
+    void setPosition(Point p, Color c) {
+        if (panel != null) {
+            panel.setPosition(p, c);
+        }
+    }
+
+    /**
+     * Stops the panel's painting thread if one is running.
+     */
+    void stopPanel() {
+        if (panel != null && GUI.panelTread != null) {
+            GUI.panelTread.interrupt();
+        }
+    }
+
+    /**
+     * Repaints the panel, does nothing when running without a panel.
+     */
+    void repaintPanel() {
+        if (panel != null) {
+            panel.paintComponent(panel.getGraphics());
+        }
+    }
+
+    /**
+     * Adds to an open set, recording one add or poll in every SearchEvents.heapSampleInterval as an event while a
+     * recording has heap operations enabled.
+     *
+     * @param queue open set.
+     * @param key   key of the value.
+     * @param rank  rank of the value among equal keys.
+     * @param value value to add.
+     */
+    void addSampled(BucketQueue queue, int key, int rank, int value) {
+        if (this.sampleInterval == 0 || --this.sampleCountdown != 0) {
+            queue.add(key, rank, value);
+            return;
+        }
+        this.sampleCountdown = this.sampleInterval;
+        SearchEvents.HeapOperation event = new SearchEvents.HeapOperation();
+        event.begin();
+        queue.add(key, rank, value);
+        this.commitSample(event, "add", key, queue);
+    }
+
+    /**
+     * Polls an open set, recording one add or poll in every SearchEvents.heapSampleInterval as an event while a
+     * recording has heap operations enabled.
+     *
+     * @param queue open set.
+     * @return the polled value.
+     */
+    int pollSampled(BucketQueue queue) {
+        if (this.sampleInterval == 0 || --this.sampleCountdown != 0) {
+            return queue.poll();
+        }
+        this.sampleCountdown = this.sampleInterval;
+        SearchEvents.HeapOperation event = new SearchEvents.HeapOperation();
+        event.begin();
+        int value = queue.poll();
+        this.commitSample(event, "poll", queue.lastKey(), queue);
+        return value;
+    }
+
+    /**
+     * Fills in and commits a sampled heap operation.
+     */
+    private void commitSample(SearchEvents.HeapOperation event, String operation, int key, BucketQueue queue) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = this.getClass().getSimpleName();
+            event.width = this.size.x;
+            event.height = this.size.y;
+            event.expansions = this.expansions;
+            event.operation = operation;
+            event.key = key;
+            event.queueSize = queue.size();
+            event.commit();
+        }
+    }
+
     /**
      * Gets the distance between two nodes using special method to calculate distance.
      *
@@ -65,4 +238,15 @@ public abstract class Algorithm implements Runnable {
         }
         return 14 * deltaX + 10 * (deltaY - deltaX);
     }
+
+    /**
+     * Gets the straight line distance between two nodes, scaled by 10 to match distanceBetween.
+     *
+     * @param p1 Originating node.
+     * @param p2 Ending node.
+     * @return Straight line distance between nodes.
+     */
+    public static double euclideanBetween(Point p1, Point p2) {
+        return 10 * Math.hypot(p2.x - p1.x, p2.y - p1.y);
+    }
 }
@@ -0,0 +1,470 @@
+package Pathfinding;
+
+import java.awt.*;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line entry point that runs queries without a display.
+ * <p>
+ * Loads a map, reads start/goal pairs from a MovingAI scenario file (or uses the start and end stored in the map),
+ * runs the chosen algorithms in parallel and writes the cost, expansions and time of every query as CSV.
+ * <p>
+ * Costs are the length of the path with orthogonal moves costing 1 and diagonal moves sqrt(2), the metric of MovingAI
+ * scenarios, so they can be compared with a scenario's optimal length; the match column says if they agree. Queries
+ * read from a scenario are searched without cutting corners, as the scenarios are, unless corner cutting is asked for.
+ * Other queries cut corners as the demo does unless asked not to.
+ */
+public class BatchRunner {
+    static final String[] ALGORITHMS = {"astar", "dijkstra", "theta", "ch", "hda", "rtaa"};
+    private static final double MATCH_TOLERANCE = 1e-3; // Scenario lengths are rounded to a few decimals
+    // Searches cost a diagonal 1.4 instead of sqrt(2), so each diagonal of an optimal path may add this to its length
+    private static final double DIAGONAL_ERROR = Math.sqrt(2) - 1.4;
+    private static final String HEADER = "query,algorithm,start_x,start_y,end_x,end_y,expected,cost,match,expansions,setup_ms,search_ms,status";
+
+    private final Grid walls;
+    private final ContractionHierarchy index;
+    private final List<Query> queries;
+    private final List<String> algorithms;
+    private final int searchThreads;
+    private final AStar.TieBreak tieBreak;
+    private final boolean morton;
+    private final SearchStatePool states;
+
+    /**
+     * Constructor for a batch of queries on one map.
+     *
+     * @param walls         walls of the map the queries are run on.
+     * @param index         contraction hierarchy for the map, only needed by "ch".
+     * @param queries       start/goal pairs to run.
+     * @param algorithms    names of the algorithms to run for every query.
+     * @param searchThreads threads used by each "hda" query.
+     * @param tieBreak      tie breaking policy of "astar".
+     * @param morton        true to keep the state of "astar" in Morton order.
+     * @param states        pool of search states shared by the "astar" and "dijkstra" queries.
+     */
+    BatchRunner(Grid walls, ContractionHierarchy index, List<Query> queries, List<String> algorithms,
+                int searchThreads, AStar.TieBreak tieBreak, boolean morton, SearchStatePool states) {
+        this.walls = walls;
+        this.index = index;
+        this.queries = queries;
+        this.algorithms = algorithms;
+        this.searchThreads = searchThreads;
+        this.tieBreak = tieBreak;
+        this.morton = morton;
+        this.states = states;
+    }
+
+    /**
+     * Runs every query with every algorithm on a pool of threads and writes one CSV row per run, in query order.
+     *
+     * @param threads number of worker threads.
+     * @param out     writer for the CSV output.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    void run(int threads, PrintWriter out) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> rows = new ArrayList<>();
+            for (int i = 0; i < queries.size(); i++) {
+                for (String algorithm : algorithms) {
+                    final int id = i;
+                    rows.add(pool.submit(() -> runQuery(id, algorithm)));
+                }
+            }
+            out.println(HEADER);
+            for (Future<String> row : rows) {
+                try {
+                    out.println(row.get());
+                } catch (ExecutionException exception) {
+                    throw new IllegalStateException("query failed", exception.getCause());
+                }
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a single query and formats the result as a CSV row.
+     *
+     * @param id        index of the query.
+     * @param algorithm name of the algorithm to run.
+     * @return CSV row for the query.
+     */
+    private String runQuery(int id, String algorithm) {
+        Query query = queries.get(id);
+        String prefix = id + "," + algorithm + "," + query.start.x + "," + query.start.y + "," + query.end.x + ","
+                + query.end.y + "," + (query.expected < 0 ? "" : String.format("%.4f", query.expected)) + ",";
+        if (!isOpen(query.start) || !isOpen(query.end)) {
+            return prefix + ",,,,,invalid";
+        }
+        long setupStart = System.nanoTime();
+        Algorithm a;
+        if (algorithm.equals("astar")) {
+            a = new AStar(walls, query.start, query.end, tieBreak, morton, states);
+        } else if (algorithm.equals("dijkstra")) {
+            a = new Dijkstra(walls, query.start, query.end, states);
+        } else {
+            a = create(algorithm, walls, index, searchThreads, query.start, query.end);
+        }
+        long searchStart = System.nanoTime();
+        String status = "solved";
+        try {
+            a.findPath();
+        } catch (IllegalArgumentException exception) {
+            status = "unsolvable";
+        }
+        long searchEnd = System.nanoTime();
+        String cost = "", match = "";
+        if (a.getPath() != null) {
+            // Straight line length between the cells of the path, which is the octile length for a step path
+            double length = a.getPath().getEuclideanCost() / 10;
+            cost = String.format("%.4f", length);
+            if (query.expected >= 0) {
+                match = matches(length, a.getPath().getDiagonalMoves(), query.expected) ? "match" : "mismatch";
+            }
+        }
+        return prefix + cost + "," + match + "," + a.getExpansions() + "," + String.format("%.3f", (searchStart - setupStart) / 1e6)
+                + "," + String.format("%.3f", (searchEnd - searchStart) / 1e6) + "," + status;
+    }
+
+    /**
+     * Checks if a path length agrees with a scenario's optimal length, given that the searches find paths that are
+     * optimal with diagonals costing 1.4. Such a path is never shorter than the optimum and is longer by at most
+     * sqrt(2) - 1.4 per diagonal of the path: its 1.4 cost is at most the optimal path's 1.4 cost, which is at most the
+     * optimum, and its length is its 1.4 cost plus sqrt(2) - 1.4 for each of its own diagonals.
+     *
+     * @param length    length of the path found.
+     * @param diagonals number of diagonal moves of the path.
+     * @param expected  optimal length given by the scenario.
+     * @return true if the path is optimal as far as the searches' costs can tell.
+     */
+    static boolean matches(double length, int diagonals, double expected) {
+        return length >= expected - MATCH_TOLERANCE && length <= expected + MATCH_TOLERANCE + DIAGONAL_ERROR * diagonals;
+    }
+
+    /**
+     * Checks if a point is on the map and not a wall.
+     *
+     * @param p point to check.
+     * @return true if the point can be stood on.
+     */
+    private boolean isOpen(Point p) {
+        return !walls.isWall(p.x, p.y);
+    }
+
+    /**
+     * Creates a headless algorithm by name.
+     *
+     * @param name  name of the algorithm, one of ALGORITHMS.
+     * @param walls walls of the map.
+     * @param index         contraction hierarchy for the map, only needed by "ch".
+     * @param searchThreads threads used by a single "hda" query.
+     * @param start         starting position.
+     * @param end           ending position.
+     * @return the algorithm, ready to generate a path.
+     */
+    static Algorithm create(String name, Grid walls, ContractionHierarchy index, int searchThreads, Point start,
+                            Point end) {
+        switch (name) {
+            case "astar":
+                return new AStar(walls, start, end);
+            case "dijkstra":
+                return new Dijkstra(walls, start, end);
+            case "theta":
+                return new ThetaStar(walls, start, end);
+            case "ch":
+                return new HierarchySearch(index, walls, start, end);
+            case "hda":
+                return new ParallelAStar(walls, start, end, searchThreads);
+            case "rtaa":
+                return new RealTimeAStar(walls, start, end, RealTimeAStar.DEFAULT_LOOKAHEAD,
+                        RealTimeAStar.DEFAULT_BUDGET_NANOS);
+            default:
+                throw new IllegalArgumentException("unknown algorithm " + name);
+        }
+    }
+
+    /**
+     * Reads start/goal pairs from a MovingAI scenario file. Each line after the "version" header holds the bucket, map
+     * name, map width, map height, start x, start y, goal x, goal y and optimal length.
+     *
+     * @param fileName path of the scenario file.
+     * @return queries in file order.
+     * @throws IOException Thrown if file can not be read or is malformed.
+     */
+    static List<Query> readScenario(String fileName) throws IOException {
+        List<Query> queries = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("version")) {
+                    continue;
+                }
+                String[] field = line.split("\t");
+                if (field.length < 9) {
+                    field = line.trim().split("\\s+");
+                }
+                if (field.length < 9) {
+                    throw new IOException(fileName + " has a malformed line: " + line);
+                }
+                try {
+                    queries.add(new Query(new Point(Integer.parseInt(field[4]), Integer.parseInt(field[5])),
+                            new Point(Integer.parseInt(field[6]), Integer.parseInt(field[7])),
+                            Double.parseDouble(field[8])));
+                } catch (NumberFormatException exception) {
+                    throw new IOException(fileName + " has a malformed line: " + line, exception);
+                }
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Builds a single query from the start and end positions stored in a map.
+     *
+     * @param map integer map.
+     * @return list holding the query, empty if the map has no start or end.
+     */
+    static List<Query> queryFromMap(int[][] map) {
+        Point start = null, end = null;
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                if (map[i][j] == 2) {
+                    start = new Point(i, j);
+                } else if (map[i][j] == 3) {
+                    end = new Point(i, j);
+                }
+            }
+        }
+        List<Query> queries = new ArrayList<>();
+        if (start != null && end != null) {
+            queries.add(new Query(start, end, -1));
+        }
+        return queries;
+    }
+
+    /**
+     * Loads the contraction hierarchy stored next to a map, building and saving it first if it is missing, unreadable,
+     * built for different walls or rebuilding was requested. Preprocessing time and index size are reported on
+     * standard error.
+     *
+     * @param mapFile path of the map file.
+     * @param walls   walls of the map, with the corner rule the index is built for.
+     * @param rebuild true to build the index even if one exists.
+     * @return the contraction hierarchy.
+     * @throws IOException Thrown if the index can not be read or written.
+     */
+    static ContractionHierarchy loadIndex(String mapFile, Grid walls, boolean rebuild) throws IOException {
+        File indexFile = new File(ContractionHierarchy.indexFileFor(mapFile, walls));
+        if (!rebuild && indexFile.exists()) {
+            long loadStart = System.nanoTime();
+            try {
+                ContractionHierarchy index = ContractionHierarchy.load(indexFile.getPath());
+                if (index.matches(walls)) {
+                    System.err.printf("loaded %s in %.1f ms%n", indexFile, (System.nanoTime() - loadStart) / 1e6);
+                    return index;
+                }
+                System.err.println(indexFile + " was built for different walls, rebuilding it");
+            } catch (IOException exception) {
+                System.err.println(exception.getMessage() + " Rebuilding it");
+            }
+        }
+        long buildStart = System.nanoTime();
+        ContractionHierarchy index = ContractionHierarchy.build(walls);
+        long buildEnd = System.nanoTime();
+        index.save(indexFile.getPath());
+        System.err.printf("built %s in %.1f ms: %d nodes, %d edges (%d shortcuts), %d bytes%n", indexFile,
+                (buildEnd - buildStart) / 1e6, index.getNodeCount(), index.getEdgeCount(), index.getShortcutCount(),
+                index.getSizeInBytes());
+        return index;
+    }
+
+    /**
+     * Prints usage and exits.
+     */
+    private static void usage() {
+        System.err.println("usage: BatchRunner [options] <map or .tiles file> [scenario file]");
+        System.err.println("  -a, --algorithms list  comma separated algorithms " + Arrays.toString(ALGORITHMS) + ", default astar");
+        System.err.println("  -t, --threads n        worker threads, default one per processor");
+        System.err.println("  -s, --search-threads n threads used by each hda query, default one per processor");
+        System.err.println("  --tie-break policy     astar tie breaking, low-h or lifo, default lifo");
+        System.err.println("  --layout order         astar state layout, row or morton, default row");
+        System.err.println("  --off-heap             keep astar and dijkstra search state outside of the Java heap");
+        System.err.println("  --profile file         record a flight recording to file and print its summary");
+        System.err.println("  --heap-sample-interval n  record one open set operation in n, default 1024");
+        System.err.println("  -o, --output file      CSV output file, default standard output");
+        System.err.println("  -c, --cache n          tiles kept in memory when reading a .tiles file, default 1024");
+        System.err.println("  --write-tiles file     convert the map to a .tiles file instead of running queries");
+        System.err.println("  --tile-size n          tile size used by --write-tiles, default 256");
+        System.err.println("  --build-index          build the contraction hierarchy next to the map and report its cost");
+        System.err.println("  --corner-cutting       cut corners as the demo does, the default without a scenario file");
+        System.err.println("  --no-corner-cutting    forbid cutting corners as MovingAI scenarios do, the default with a scenario file");
+        System.exit(2);
+    }
+
+    /**
+     * Main method for headless batch runs.
+     *
+     * @param args command line args.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> algorithms = List.of("astar");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int searchThreads = Runtime.getRuntime().availableProcessors();
+        String output = null, tilesOutput = null, profile = null;
+        boolean buildIndex = false, morton = false, offHeap = false;
+        Boolean cornerCutting = null; // Null to follow the scenario file, if there is one
+        AStar.TieBreak tieBreak = AStar.TieBreak.LIFO;
+        int cacheTiles = 1024, tileSize = 256;
+        List<String> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-a":
+                    case "--algorithms":
+                        algorithms = Arrays.asList(args[++i].split(","));
+                        break;
+                    case "-t":
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-s":
+                    case "--search-threads":
+                        searchThreads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--tie-break":
+                        tieBreak = AStar.TieBreak.valueOf(args[++i].toUpperCase().replace('-', '_'));
+                        break;
+                    case "--layout":
+                        if (!args[++i].equals("row") && !args[i].equals("morton")) {
+                            usage();
+                        }
+                        morton = args[i].equals("morton");
+                        break;
+                    case "--off-heap":
+                        offHeap = true;
+                        break;
+                    case "--profile":
+                        profile = args[++i];
+                        break;
+                    case "--heap-sample-interval":
+                        SearchEvents.heapSampleInterval = Integer.parseInt(args[++i]);
+                        break;
+                    case "-o":
+                    case "--output":
+                        output = args[++i];
+                        break;
+                    case "-c":
+                    case "--cache":
+                        cacheTiles = Integer.parseInt(args[++i]);
+                        break;
+                    case "--write-tiles":
+                        tilesOutput = args[++i];
+                        break;
+                    case "--tile-size":
+                        tileSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--build-index":
+                        buildIndex = true;
+                        break;
+                    case "--corner-cutting":
+                        cornerCutting = true;
+                        break;
+                    case "--no-corner-cutting":
+                        cornerCutting = false;
+                        break;
+                    default:
+                        files.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException exception) {
+            usage();
+        }
+        if (files.isEmpty() || files.size() > 2 || threads < 1 || searchThreads < 1 || cacheTiles < 1
+                || SearchEvents.heapSampleInterval < 1
+                || !Arrays.asList(ALGORITHMS).containsAll(algorithms)) {
+            usage();
+        }
+
+        SearchProfiler profiler = profile == null ? null
+                : new SearchProfiler(profile, SearchProfiler.DEFAULT_SAMPLE_PERIOD);
+        try {
+            if (tilesOutput != null && !files.get(0).endsWith(".tiles") && MapFile.isMovingAI(files.get(0))) {
+                // Stream the rows straight into the tiles, so the map never has to fit in memory
+                try (MapFile.Rows rows = new MapFile.Rows(files.get(0))) {
+                    TiledGrid.write(rows, tilesOutput, tileSize);
+                }
+                return;
+            }
+            Grid walls;
+            List<Query> queries;
+            if (files.get(0).endsWith(".tiles")) {
+                walls = new TiledGrid(files.get(0), cacheTiles);
+                queries = files.size() == 2 ? readScenario(files.get(1)) : new ArrayList<>();
+            } else {
+                int[][] map = MapFile.read(files.get(0));
+                walls = new WallGrid(map);
+                queries = files.size() == 2 ? readScenario(files.get(1)) : queryFromMap(map);
+            }
+            if (tilesOutput != null) {
+                TiledGrid.write(walls, tilesOutput, tileSize);
+                return;
+            }
+            try {
+                Path.cells(walls.getWidth(), walls.getHeight());
+            } catch (IllegalArgumentException exception) {
+                System.err.println(exception.getMessage());
+                System.exit(1);
+            }
+            // Scenario lengths are measured without cutting corners
+            if (cornerCutting == null) {
+                cornerCutting = files.size() < 2;
+            }
+            Grid searched = cornerCutting ? walls : new NoCornerCuttingGrid(walls);
+            ContractionHierarchy index = null;
+            if (buildIndex || algorithms.contains("ch")) {
+                index = loadIndex(files.get(0), searched, buildIndex);
+                if (buildIndex) {
+                    return;
+                }
+            }
+            PrintWriter out = output == null ? new PrintWriter(System.out) : new PrintWriter(new FileWriter(output));
+            try {
+                new BatchRunner(searched, index, queries, algorithms, searchThreads, tieBreak, morton,
+                        new SearchStatePool(offHeap, threads)).run(threads, out);
+            } finally {
+                out.close();
+                if (walls instanceof TiledGrid) {
+                    ((TiledGrid) walls).close();
+                }
+            }
+        } finally {
+            if (profiler != null) {
+                profiler.stop(System.err);
+            }
+        }
+    }
+
+    /**
+     * A start/goal pair with the optimal length given by the scenario, or -1 if unknown.
+     */
+    static class Query {
+        final Point start, end;
+        final double expected;
+
+        Query(Point start, Point end, double expected) {
+            this.start = start;
+            this.end = end;
+            this.expected = expected;
+        }
+    }
+}
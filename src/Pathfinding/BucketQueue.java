@@ -0,0 +1,167 @@
+package Pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Monotone priority queue of ints with small integer keys (Dial's algorithm).
+ * <p>
+ * Every move costs 10 or 14, so the key of anything added is never below the smallest key in the queue and never
+ * more than a small step above it. The queue keeps one bucket per key in a circular array that spans that step, so
+ * adding and polling are constant time apart from skipping empty buckets, and no comparisons are made between keys.
+ * Values with equal keys are taken in the order chosen for the queue.
+ * <p>
+ * Entries are not removed when their key improves; the caller adds the value again and skips the stale entry when it
+ * is polled, comparing the polled key with its own record of the best key.
+ */
+final class BucketQueue {
+    /**
+     * Order in which values with equal keys are polled.
+     */
+    enum Order {
+        /**
+         * The value added last is polled first.
+         */
+        LIFO,
+        /**
+         * The value with the lowest rank is polled first, each bucket is kept as a binary heap.
+         */
+        LOWEST_RANK
+    }
+
+    private final Order order;
+    private final int mask;
+    private final long[][] buckets; // Rank in the high half and value in the low half
+    private final int[] counts;
+    private int current = 0; // Smallest key that can still be in the queue
+    private int size = 0;
+    private int lastKey;
+
+    /**
+     * Creates a queue for keys that are never more than maxStep above the smallest key in the queue, polling equal keys
+     * last in first out.
+     *
+     * @param maxStep largest difference between a key added and the smallest key queued.
+     */
+    BucketQueue(int maxStep) {
+        this(maxStep, Order.LIFO);
+    }
+
+    /**
+     * Creates a queue for keys that are never more than maxStep above the smallest key in the queue.
+     *
+     * @param maxStep largest difference between a key added and the smallest key queued.
+     * @param order   order in which values with equal keys are polled.
+     */
+    BucketQueue(int maxStep, Order order) {
+        int span = Integer.highestOneBit(maxStep) << 1;
+        this.order = order;
+        this.mask = span - 1;
+        this.buckets = new long[span][8];
+        this.counts = new int[span];
+    }
+
+    /**
+     * Adds a value with the given key.
+     *
+     * @param key   key of the value, at least the key last polled and at most maxStep above the smallest key queued.
+     * @param value value to add, not negative.
+     */
+    void add(int key, int value) {
+        add(key, 0, value);
+    }
+
+    /**
+     * Adds a value with the given key and a rank that orders it among values with the same key.
+     *
+     * @param key   key of the value, at least the key last polled and at most maxStep above the smallest key queued.
+     * @param rank  rank of the value, not negative, only used by LOWEST_RANK.
+     * @param value value to add, not negative.
+     */
+    void add(int key, int rank, int value) {
+        if (key < current || key - current > mask) {
+            if (size > 0) {
+                throw new IllegalArgumentException("key " + key + " is outside of the queue's window at " + current + ".");
+            }
+            current = key; // Nothing queued, so the window can move anywhere
+        }
+        int b = key & mask;
+        long[] bucket = buckets[b];
+        if (counts[b] == bucket.length) {
+            bucket = buckets[b] = Arrays.copyOf(bucket, counts[b] * 2);
+        }
+        long entry = (long) rank << 32 | value;
+        int i = counts[b]++;
+        if (order == Order.LOWEST_RANK) {
+            while (i > 0 && bucket[(i - 1) >>> 1] > entry) {
+                bucket[i] = bucket[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+        }
+        bucket[i] = entry;
+        size++;
+    }
+
+    /**
+     * Removes a value with the smallest key.
+     *
+     * @return the value, its key is then returned by lastKey.
+     */
+    int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("queue is empty.");
+        }
+        while (counts[current & mask] == 0) {
+            current++;
+        }
+        size--;
+        lastKey = current;
+        int b = current & mask;
+        long[] bucket = buckets[b];
+        int n = --counts[b];
+        if (order == Order.LIFO) {
+            return (int) bucket[n];
+        }
+        long top = bucket[0], last = bucket[n];
+        int i = 0;
+        while (2 * i + 1 < n) {
+            int child = 2 * i + 1;
+            if (child + 1 < n && bucket[child + 1] < bucket[child]) {
+                child++;
+            }
+            if (bucket[child] >= last) {
+                break;
+            }
+            bucket[i] = bucket[child];
+            i = child;
+        }
+        bucket[i] = last;
+        return (int) top;
+    }
+
+    /**
+     * Returns the key of the value returned by the last call to poll.
+     *
+     * @return key of the last polled value.
+     */
+    int lastKey() {
+        return lastKey;
+    }
+
+    /**
+     * Returns the number of values queued, stale entries included.
+     *
+     * @return number of values queued.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return true if nothing is queued.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,128 @@
+package Pathfinding;
+
+/**
+ * Maps the cells of a map to positions in the flat arrays a search keeps its state in.
+ * <p>
+ * The row major layout is the one used by Path, cell (x, y) at x * height + y. The Morton (Z-order) layout interleaves
+ * the bits of x and y, so every aligned square of 2^k x 2^k cells is contiguous and the eight neighbors of a cell are
+ * usually a few cache lines away instead of a whole column. Morton indices are monotone in x and y, so the arrays
+ * need index(width - 1, height - 1) + 1 entries, which wastes space on long thin maps.
+ */
+abstract class CellLayout {
+    final int width, height;
+
+    private CellLayout(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates the row major layout used by Path.
+     *
+     * @param width  width of the map.
+     * @param height height of the map.
+     * @return the layout.
+     */
+    static CellLayout rowMajor(int width, int height) {
+        return new CellLayout(width, height) {
+            @Override
+            int index(int x, int y) {
+                return x * this.height + y;
+            }
+
+            @Override
+            int x(int index) {
+                return index / this.height;
+            }
+
+            @Override
+            int y(int index) {
+                return index % this.height;
+            }
+        };
+    }
+
+    /**
+     * Creates the Morton (Z-order) layout.
+     *
+     * @param width  width of the map, at most 32768.
+     * @param height height of the map, at most 32768.
+     * @return the layout.
+     */
+    static CellLayout morton(int width, int height) {
+        if (width > 1 << 15 || height > 1 << 15) {
+            throw new IllegalArgumentException("Morton layout supports maps up to 32768 x 32768.");
+        }
+        return new CellLayout(width, height) {
+            @Override
+            int index(int x, int y) {
+                return spread(x) | spread(y) << 1;
+            }
+
+            @Override
+            int x(int index) {
+                return compact(index);
+            }
+
+            @Override
+            int y(int index) {
+                return compact(index >>> 1);
+            }
+        };
+    }
+
+    /**
+     * Returns the position of a cell.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return index into the state arrays.
+     */
+    abstract int index(int x, int y);
+
+    /**
+     * Returns the x coordinate of a position.
+     *
+     * @param index index into the state arrays.
+     * @return x coordinate.
+     */
+    abstract int x(int index);
+
+    /**
+     * Returns the y coordinate of a position.
+     *
+     * @param index index into the state arrays.
+     * @return y coordinate.
+     */
+    abstract int y(int index);
+
+    /**
+     * Returns the length the state arrays need.
+     *
+     * @return number of positions.
+     */
+    int capacity() {
+        return index(width - 1, height - 1) + 1;
+    }
+
+    /**
+     * Spreads the low 16 bits of a value to the even bits.
+     */
+    private static int spread(int v) {
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        return (v | (v << 1)) & 0x55555555;
+    }
+
+    /**
+     * Gathers the even bits of a value into the low 16 bits, the inverse of spread.
+     */
+    private static int compact(int v) {
+        v &= 0x55555555;
+        v = (v | (v >>> 1)) & 0x33333333;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F;
+        v = (v | (v >>> 4)) & 0x00FF00FF;
+        return (v | (v >>> 8)) & 0x0000FFFF;
+    }
+}
@@ -0,0 +1,758 @@
+package Pathfinding;
+
+import java.awt.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Contraction hierarchy built over the grid graph of a map, used to answer long range queries while touching only a
+ * small part of the map.
+ * <p>
+ * Preprocessing removes the free cells one by one in order of importance. When a cell is removed, a shortcut is added
+ * between each pair of its remaining neighbors unless a witness path that avoids the cell is at least as short. A
+ * query then runs a Dijkstra search from each end that only follows edges towards more important cells, and the two
+ * searches meet at the most important cell of the shortest path. Shortcuts remember the cell they skip, so the path
+ * is unpacked back into grid moves.
+ * <p>
+ * The index is immutable once built and can be shared by any number of concurrent queries.
+ */
+public final class ContractionHierarchy {
+    static final int MAGIC = 0x50434832; // "PCH2"
+    // Nodes a witness search may settle while estimating a priority, doubled for the second half of the contraction
+    private static final int WITNESS_SETTLE_LIMIT = 16;
+
+    private final int width, height;
+    private final long wallHash; // Hash of the moves out of every cell of the map the index was built for
+    private final int[] cells; // Packed cell index of every node, sorted so nodes can be found by binary search
+    private final int[] rank; // Order in which the nodes were contracted
+    private final int[] first; // Upward edges of node v are first[v] to first[v + 1] - 1
+    private final int[] target, weight, middle; // Middle is the contracted node a shortcut skips, -1 for grid moves
+    private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(() -> new Workspace(getNodeCount()));
+
+    private ContractionHierarchy(int width, int height, long wallHash, int[] cells, int[] rank, int[] first,
+                                 int[] target, int[] weight, int[] middle) {
+        this.width = width;
+        this.height = height;
+        this.wallHash = wallHash;
+        this.cells = cells;
+        this.rank = rank;
+        this.first = first;
+        this.target = target;
+        this.weight = weight;
+        this.middle = middle;
+    }
+
+    /**
+     * Returns the number of nodes, which is the number of free cells in the map.
+     *
+     * @return number of nodes.
+     */
+    public int getNodeCount() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the number of upward edges, grid moves and shortcuts.
+     *
+     * @return number of edges.
+     */
+    public int getEdgeCount() {
+        return target.length;
+    }
+
+    /**
+     * Returns the number of upward edges that are shortcuts.
+     *
+     * @return number of shortcuts.
+     */
+    public int getShortcutCount() {
+        int count = 0;
+        for (int m : middle) {
+            if (m >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the size of the index when saved.
+     *
+     * @return size in bytes.
+     */
+    public long getSizeInBytes() {
+        return 4L * (7 + 2L * cells.length + first.length + 3L * target.length);
+    }
+
+    /**
+     * Checks if the index was built for a map of the given size, a check cheap enough to make on every query.
+     *
+     * @param walls map to check.
+     * @return true if the sizes match.
+     */
+    public boolean hasSizeOf(Grid walls) {
+        return walls.getWidth() == width && walls.getHeight() == height;
+    }
+
+    /**
+     * Checks if the index was built for the given map, comparing its size and the hash of its walls. Check this once
+     * when the index is loaded for a map, not per query. Reads every cell
+     * of the map, which is still far cheaper than building the index again.
+     *
+     * @param walls map to check.
+     * @return true if the index was built for a map with the same size and moves.
+     */
+    public boolean matches(Grid walls) {
+        return hasSizeOf(walls) && hash(walls) == wallHash;
+    }
+
+    /**
+     * Hashes the moves out of every cell of a map with 64-bit FNV-1a. The moves rather than the walls are hashed, so
+     * a map whose walls are the same but whose corner rule differs has a different hash.
+     *
+     * @param walls map to hash.
+     * @return hash of the map.
+     */
+    static long hash(Grid walls) {
+        long hash = 0xcbf29ce484222325L;
+        for (int x = 0; x < walls.getWidth(); x++) {
+            for (int y = 0; y < walls.getHeight(); y++) {
+                // A wall hashes as 256, which no mask of moves can be
+                hash = (hash ^ (walls.isWall(x, y) ? 0x100 : walls.neighbors(x, y))) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Builds the index for a map.
+     *
+     * @param walls walls of the map.
+     * @return the contraction hierarchy.
+     * @throws IllegalArgumentException Thrown if the map has more cells than Path.cells allows.
+     */
+    public static ContractionHierarchy build(Grid walls) {
+        Path.cells(walls.getWidth(), walls.getHeight());
+        return new Builder(walls).build();
+    }
+
+    /**
+     * Finds the shortest path between two cells.
+     *
+     * @param start starting cell.
+     * @param end   ending cell.
+     * @return the result of the query, with a null path if there is none.
+     */
+    public Result query(Point start, Point end) {
+        int s = node(start), t = node(end);
+        if (s < 0 || t < 0) {
+            return new Result(null, 0, 0);
+        }
+        Workspace w = workspace.get();
+        w.reset();
+        w.label(0, s, 0, -1);
+        w.label(1, t, 0, -1);
+        int best = Integer.MAX_VALUE, meet = -1, settled = 0;
+        int side = 0;
+        while (w.queue[0].size() > 0 || w.queue[1].size() > 0) {
+            // Stop a direction once nothing in it can improve the best meeting point
+            for (int d = 0; d < 2; d++) {
+                if (w.queue[d].size() > 0 && w.queue[d].peek() >>> 32 >= best) {
+                    w.queue[d].clear();
+                }
+            }
+            if (w.queue[0].size() == 0 && w.queue[1].size() == 0) {
+                break;
+            }
+            if (w.queue[side].size() == 0) {
+                side = 1 - side;
+            }
+            int[] distance = w.distance[side], other = w.distance[1 - side];
+            long entry = w.queue[side].poll();
+            int v = (int) entry;
+            if (entry >>> 32 == distance[v] && !stalled(v, distance)) {
+                settled++;
+                if (other[v] != Integer.MAX_VALUE && distance[v] + other[v] < best) {
+                    best = distance[v] + other[v];
+                    meet = v;
+                }
+                for (int e = first[v]; e < first[v + 1]; e++) {
+                    int newDistance = distance[v] + weight[e];
+                    if (newDistance < distance[target[e]]) {
+                        w.label(side, target[e], newDistance, v);
+                    }
+                }
+            }
+            side = 1 - side;
+        }
+        if (meet < 0) {
+            return new Result(null, best, settled);
+        }
+        // Collect the chain of upward edges from start to the meeting node and down to the end
+        IntList nodes = new IntList();
+        for (int v = meet; v != -1; v = w.previous[0][v]) {
+            nodes.add(v);
+        }
+        nodes.reverse();
+        for (int v = w.previous[1][meet]; v != -1; v = w.previous[1][v]) {
+            nodes.add(v);
+        }
+        IntList steps = new IntList();
+        steps.add(cells[nodes.get(0)]);
+        for (int i = 1; i < nodes.size(); i++) {
+            unpack(nodes.get(i - 1), nodes.get(i), steps);
+        }
+        return new Result(new Path(steps.toArray(), height), best, settled);
+    }
+
+    /**
+     * Stall on demand: a node does not need to be expanded if a more important node already reached has a shorter way
+     * down to it, since no shortest path then goes through it in this direction.
+     *
+     * @param v        node about to be expanded.
+     * @param distance tentative distances of the search direction.
+     * @return true if the node can be skipped.
+     */
+    private boolean stalled(int v, int[] distance) {
+        for (int e = first[v]; e < first[v + 1]; e++) {
+            int d = distance[target[e]];
+            if (d != Integer.MAX_VALUE && d + weight[e] < distance[v]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unpacks the edge between two nodes into grid moves, appending every cell after the first.
+     *
+     * @param a     first node.
+     * @param b     second node.
+     * @param steps list the cells are appended to.
+     */
+    private void unpack(int a, int b, IntList steps) {
+        IntList stack = new IntList();
+        stack.add(b);
+        stack.add(a);
+        while (stack.size() > 0) {
+            int from = stack.pop(), to = stack.pop();
+            int m = middle[edge(from, to)];
+            if (m < 0) {
+                steps.add(cells[to]);
+            } else {
+                // Unpack from -> m before m -> to
+                stack.add(to);
+                stack.add(m);
+                stack.add(m);
+                stack.add(from);
+            }
+        }
+    }
+
+    /**
+     * Finds the upward edge between two nodes, it is stored with the lower ranked node.
+     *
+     * @param a first node.
+     * @param b second node.
+     * @return index of the edge.
+     */
+    private int edge(int a, int b) {
+        int low = rank[a] < rank[b] ? a : b, high = low == a ? b : a;
+        for (int e = first[low]; e < first[low + 1]; e++) {
+            if (target[e] == high) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("index has no edge between " + a + " and " + b + ".");
+    }
+
+    /**
+     * Finds the node of a cell.
+     *
+     * @param p cell to find.
+     * @return node id, or -1 if the cell is a wall or off the map.
+     */
+    private int node(Point p) {
+        if (p.x < 0 || p.y < 0 || p.x >= width || p.y >= height) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(cells, Path.index(p.x, p.y, height));
+        return i < 0 ? -1 : i;
+    }
+
+    /**
+     * Returns the default index file for a map file, next to the map with the extension replaced by ".ch", or by
+     * ".nocut.ch" for an index of the map searched without cutting corners. Each rule gets its own file, so runs
+     * alternating between the two do not keep rebuilding one index.
+     *
+     * @param mapFile path of the map file.
+     * @param walls   walls the index is built for, a NoCornerCuttingGrid for the stricter rule.
+     * @return path of the index file.
+     */
+    public static String indexFileFor(String mapFile, Grid walls) {
+        int dot = mapFile.lastIndexOf('.');
+        int slash = Math.max(mapFile.lastIndexOf('/'), mapFile.lastIndexOf('\\'));
+        return (dot > slash ? mapFile.substring(0, dot) : mapFile)
+                + (walls instanceof NoCornerCuttingGrid ? ".nocut.ch" : ".ch");
+    }
+
+    /**
+     * Saves the index to a file.
+     *
+     * @param fileName path of the index file.
+     * @throws IOException Thrown if file can not be written to.
+     */
+    public void save(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeLong(wallHash);
+            out.writeInt(cells.length);
+            out.writeInt(target.length);
+            for (int[] array : new int[][]{cells, rank, first, target, weight, middle}) {
+                for (int value : array) {
+                    out.writeInt(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads an index saved by save, reading the whole file in one pass.
+     *
+     * @param fileName path of the index file.
+     * @return the contraction hierarchy.
+     * @throws IOException Thrown if file can not be read or is not an index file.
+     */
+    public static ContractionHierarchy load(String fileName) throws IOException {
+        IntBuffer in = ByteBuffer.wrap(Files.readAllBytes(Paths.get(fileName))).asIntBuffer();
+        try {
+            if (in.get() != MAGIC) {
+                throw new IOException(fileName + " is not a contraction hierarchy file of this version.");
+            }
+            int width = in.get(), height = in.get();
+            long wallHash = ((long) in.get() << 32) | (in.get() & 0xFFFFFFFFL);
+            int n = in.get(), m = in.get();
+            int[] cells = new int[n], rank = new int[n], first = new int[n + 1];
+            int[] target = new int[m], weight = new int[m], middle = new int[m];
+            for (int[] array : new int[][]{cells, rank, first, target, weight, middle}) {
+                in.get(array);
+            }
+            return new ContractionHierarchy(width, height, wallHash, cells, rank, first, target, weight, middle);
+        } catch (java.nio.BufferUnderflowException exception) {
+            throw new IOException(fileName + " ended early.", exception);
+        }
+    }
+
+    /**
+     * Result of a query.
+     */
+    public static final class Result {
+        final Path path;
+        final int cost, settled;
+
+        Result(Path path, int cost, int settled) {
+            this.path = path;
+            this.cost = cost;
+            this.settled = settled;
+        }
+    }
+
+    /**
+     * Contracts the nodes of a grid one at a time and collects the upward edges.
+     */
+    private static final class Builder {
+        private final Grid walls;
+        private final int[] cells;
+        private final int[][] adjTarget, adjWeight, adjMiddle;
+        private final int[] adjSize, rank, deleted, level;
+        private final boolean[] contracted;
+        // Witness search state, reset through the touched list after each search
+        private final int[] distance;
+        private final int[] need; // Via cost of each target of the running witness search, -1 for other nodes
+        private int settleLimit = WITNESS_SETTLE_LIMIT;
+        private final IntList touched = new IntList();
+        private final LongHeap heap = new LongHeap();
+
+        Builder(Grid walls) {
+            this.walls = walls;
+            int width = walls.getWidth(), height = walls.getHeight();
+            IntList free = new IntList();
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    if (!walls.isWall(i, j)) {
+                        free.add(Path.index(i, j, height));
+                    }
+                }
+            }
+            this.cells = free.toArray();
+            int n = cells.length;
+            this.adjTarget = new int[n][];
+            this.adjWeight = new int[n][];
+            this.adjMiddle = new int[n][];
+            this.adjSize = new int[n];
+            this.rank = new int[n];
+            this.deleted = new int[n];
+            this.level = new int[n];
+            this.contracted = new boolean[n];
+            this.distance = new int[n];
+            Arrays.fill(distance, Integer.MAX_VALUE);
+            this.need = new int[n];
+            Arrays.fill(need, -1);
+            for (int v = 0; v < n; v++) {
+                adjTarget[v] = new int[8];
+                adjWeight[v] = new int[8];
+                adjMiddle[v] = new int[8];
+                int x = cells[v] / height, y = cells[v] % height;
+                for (int m = walls.neighbors(x, y); m != 0; m &= m - 1) {
+                    int d = Integer.numberOfTrailingZeros(m);
+                    int u = Arrays.binarySearch(cells, Path.index(x + Path.DX[d], y + Path.DY[d], height));
+                    addEdge(v, u, (d & 1) == 0 ? 10 : 14, -1);
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            int n = cells.length;
+            PriorityQueue<long[]> order = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+            for (int v = 0; v < n; v++) {
+                order.add(new long[]{priority(v), v});
+            }
+            int next = 0;
+            while (!order.isEmpty()) {
+                long[] entry = order.poll();
+                int v = (int) entry[1];
+                // Lazy update, requeue the node if its priority rose past the next candidate
+                long current = priority(v);
+                if (!order.isEmpty() && current > order.peek()[0]) {
+                    order.add(new long[]{current, v});
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = next++;
+                for (int i = 0; i < adjSize[v]; i++) {
+                    int u = adjTarget[v][i];
+                    deleted[u]++;
+                    level[u] = Math.max(level[u], level[v] + 1);
+                    removeEdge(u, v);
+                }
+                // The remaining nodes are more connected, so their estimates look further for witnesses
+                settleLimit = WITNESS_SETTLE_LIMIT << (int) (2L * next / n);
+            }
+            // Keep only the edges that lead to higher ranked nodes
+            int[] first = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                int count = 0;
+                for (int i = 0; i < adjSize[v]; i++) {
+                    if (rank[adjTarget[v][i]] > rank[v]) {
+                        count++;
+                    }
+                }
+                first[v + 1] = first[v] + count;
+            }
+            int[] target = new int[first[n]], weight = new int[first[n]], middle = new int[first[n]];
+            for (int v = 0; v < n; v++) {
+                int e = first[v];
+                for (int i = 0; i < adjSize[v]; i++) {
+                    if (rank[adjTarget[v][i]] > rank[v]) {
+                        target[e] = adjTarget[v][i];
+                        weight[e] = adjWeight[v][i];
+                        middle[e] = adjMiddle[v][i];
+                        e++;
+                    }
+                }
+            }
+            return new ContractionHierarchy(walls.getWidth(), walls.getHeight(), hash(walls), cells, rank, first,
+                    target, weight, middle);
+        }
+
+        /**
+         * Priority of a node, lower is contracted first: twice the edge difference, plus the number of contracted
+         * neighbors and the level of the node, which spread the contraction evenly over the map.
+         */
+        private long priority(int v) {
+            int degree = 0;
+            for (int i = 0; i < adjSize[v]; i++) {
+                if (!contracted[adjTarget[v][i]]) {
+                    degree++;
+                }
+            }
+            return 2L * (contract(v, true) - degree) + deleted[v] + level[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract a node and adds them unless simulating.
+         *
+         * @return number of shortcuts needed.
+         */
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            for (int i = 0; i < adjSize[v]; i++) {
+                int u = adjTarget[v][i];
+                if (contracted[u]) {
+                    continue;
+                }
+                int limit = 0, targets = 0;
+                for (int j = i + 1; j < adjSize[v]; j++) {
+                    int w = adjTarget[v][j];
+                    if (!contracted[w]) {
+                        int via = adjWeight[v][i] + adjWeight[v][j];
+                        limit = Math.max(limit, via);
+                        need[w] = via;
+                        targets++;
+                    }
+                }
+                if (limit == 0) {
+                    continue;
+                }
+                // Estimates settle a bounded number of nodes, the contraction itself searches up to the cost limit so
+                // no witness is missed and no needless shortcut added
+                witnessSearch(u, v, limit, targets, simulate ? settleLimit : Integer.MAX_VALUE);
+                for (int j = i + 1; j < adjSize[v]; j++) {
+                    int w = adjTarget[v][j];
+                    int via = adjWeight[v][i] + adjWeight[v][j];
+                    if (contracted[w]) {
+                        continue;
+                    }
+                    need[w] = -1;
+                    if (distance[w] <= via) {
+                        continue;
+                    }
+                    shortcuts++;
+                    if (!simulate) {
+                        addEdge(u, w, via, v);
+                        addEdge(w, u, via, v);
+                    }
+                }
+                resetWitness();
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Dijkstra search from u over uncontracted nodes other than v, bounded by distance and settled nodes. It stops
+         * early once each of the given number of targets has been reached within its via cost.
+         */
+        private void witnessSearch(int u, int v, int limit, int targets, int maxSettled) {
+            distance[u] = 0;
+            touched.add(u);
+            heap.add(u);
+            int settled = 0;
+            while (heap.size() > 0 && settled < maxSettled) {
+                long top = heap.poll();
+                int x = (int) top, d = (int) (top >>> 32);
+                if (d > distance[x]) {
+                    continue;
+                }
+                if (d > limit) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < adjSize[x]; i++) {
+                    int y = adjTarget[x][i];
+                    if (y == v || contracted[y]) {
+                        continue;
+                    }
+                    int nd = d + adjWeight[x][i];
+                    if (nd <= limit && nd < distance[y]) {
+                        if (distance[y] == Integer.MAX_VALUE) {
+                            touched.add(y);
+                        }
+                        if (need[y] >= 0 && nd <= need[y] && distance[y] > need[y] && --targets == 0) {
+                            distance[y] = nd;
+                            return;
+                        }
+                        distance[y] = nd;
+                        heap.add(((long) nd << 32) | y);
+                    }
+                }
+            }
+        }
+
+        private void resetWitness() {
+            for (int i = 0; i < touched.size(); i++) {
+                distance[touched.get(i)] = Integer.MAX_VALUE;
+            }
+            touched.clear();
+            heap.clear();
+        }
+
+        /**
+         * Removes the directed edge between two nodes if there is one, the last edge takes its place.
+         */
+        private void removeEdge(int from, int to) {
+            for (int i = 0; i < adjSize[from]; i++) {
+                if (adjTarget[from][i] == to) {
+                    int last = --adjSize[from];
+                    adjTarget[from][i] = adjTarget[from][last];
+                    adjWeight[from][i] = adjWeight[from][last];
+                    adjMiddle[from][i] = adjMiddle[from][last];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Adds a directed edge, or lowers the weight of the existing edge between the same nodes.
+         */
+        private void addEdge(int from, int to, int w, int mid) {
+            for (int i = 0; i < adjSize[from]; i++) {
+                if (adjTarget[from][i] == to) {
+                    if (w < adjWeight[from][i]) {
+                        adjWeight[from][i] = w;
+                        adjMiddle[from][i] = mid;
+                    }
+                    return;
+                }
+            }
+            if (adjSize[from] == adjTarget[from].length) {
+                adjTarget[from] = Arrays.copyOf(adjTarget[from], adjSize[from] * 2);
+                adjWeight[from] = Arrays.copyOf(adjWeight[from], adjSize[from] * 2);
+                adjMiddle[from] = Arrays.copyOf(adjMiddle[from], adjSize[from] * 2);
+            }
+            adjTarget[from][adjSize[from]] = to;
+            adjWeight[from][adjSize[from]] = w;
+            adjMiddle[from][adjSize[from]] = mid;
+            adjSize[from]++;
+        }
+    }
+
+    /**
+     * Per thread query state, sized for every node once and reset through the list of nodes a query touched.
+     */
+    private static final class Workspace {
+        final int[][] distance, previous;
+        final LongHeap[] queue = {new LongHeap(), new LongHeap()};
+        private final IntList touched = new IntList();
+
+        Workspace(int n) {
+            this.distance = new int[2][n];
+            this.previous = new int[2][n];
+            Arrays.fill(distance[0], Integer.MAX_VALUE);
+            Arrays.fill(distance[1], Integer.MAX_VALUE);
+        }
+
+        /**
+         * Records a tentative distance for a node in one direction and queues it.
+         */
+        void label(int side, int v, int d, int from) {
+            if (distance[0][v] == Integer.MAX_VALUE && distance[1][v] == Integer.MAX_VALUE) {
+                touched.add(v);
+            }
+            distance[side][v] = d;
+            previous[side][v] = from;
+            queue[side].add((long) d << 32 | v);
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                distance[0][touched.get(i)] = Integer.MAX_VALUE;
+                distance[1][touched.get(i)] = Integer.MAX_VALUE;
+            }
+            touched.clear();
+            queue[0].clear();
+            queue[1].clear();
+        }
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int temp = values[i];
+                values[i] = values[j];
+                values[j] = temp;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Binary min-heap of longs, used with the distance in the high half and the node in the low half.
+     */
+    private static final class LongHeap {
+        private long[] heap = new long[64];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && heap[(i - 1) >>> 1] > value) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = value;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        long poll() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
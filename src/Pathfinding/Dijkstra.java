@@ -1,15 +1,15 @@
 package Pathfinding;
 
 import java.awt.*;
-import java.util.PriorityQueue;
 
 /**
  * @author Ian Sodersjerna
  * @date 6/30/2020
  */
 public class Dijkstra extends Algorithm {
-    private final Node[][] nodeMap;
-    private final PriorityQueue<Node> unvisited;
+    private final BucketQueue unvisited = new BucketQueue(14); // Packed cell indices keyed by distance
+    private final SearchStatePool pool;
+    private SearchState state; // Distance and parent of every packed cell index
     private final Color visitedColor = Color.green;
     private final Color unvisitedColor = Color.red;
 
@@ -22,101 +22,132 @@ public class Dijkstra extends Algorithm {
      */
     Dijkstra(mapPanel panel, boolean updateWhileRunning) {
         super(panel, updateWhileRunning);
-        nodeMap = new Node[size.x][size.y];
-        unvisited = new PriorityQueue<>();
-        for (int i = 0; i < nodeMap.length; ++i) {
-            for (int j = 0; j < nodeMap[0].length; ++j) {
-                nodeMap[i][j] = new Node(new Point(i, j), Integer.MAX_VALUE);
-                if (map[i][j] == 1) {
-                    nodeMap[i][j].wall = true;
-                }
-            }
-        }
-        this.unvisited.add(nodeMap[start.x][start.y]);
-        this.panel.setPosition(nodeMap[start.x][start.y].position, visitedColor);
-        this.nodeMap[start.x][start.y].distance = 0;
-        this.nodeMap[end.x][end.y].end = true;
+        this.pool = SearchStatePool.DEFAULT;
+        setup();
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel.
+     *
+     * @param walls walls of the map, any grid backend.
+     * @param start starting position.
+     * @param end   ending position.
+     */
+    Dijkstra(Grid walls, Point start, Point end) {
+        this(walls, start, end, SearchStatePool.DEFAULT);
     }
 
+    /**
+     * Constructor for running the algorithm without a panel, taking the search state from a pool.
+     *
+     * @param walls walls of the map, any grid backend.
+     * @param start starting position.
+     * @param end   ending position.
+     * @param pool  pool the search state is taken from and returned to once the path is found.
+     */
+    Dijkstra(Grid walls, Point start, Point end, SearchStatePool pool) {
+        super(walls, start, end);
+        this.pool = pool;
+        setup();
+    }
+
+    /**
+     * Takes the search state from the pool and adds the starting node to the unvisited queue.
+     */
+    private void setup() {
+        this.state = pool.acquire(size.x * size.y);
+        int first = Path.index(start.x, start.y, size.y);
+        this.state.setG(first, 0);
+        this.state.setParent(first, -1);
+        this.unvisited.add(0, first);
+        this.setPosition(start, visitedColor);
+    }
+
+    /**
+     * Method to store the path generated as packed cell indices and paint it to the panel.
+     */
     public void paintPath() {
-        Node current = nodeMap[end.x][end.y];
-        while (current.parent != null) {
-            current = current.parent;
-            this.panel.setPosition(current.position.x, current.position.y, Color.blue);
+        int goal = Path.index(end.x, end.y, size.y);
+        int length = 0;
+        for (int c = goal; c != -1; c = state.parent(c)) {
+            length++;
         }
-        this.panel.setPosition(this.start, mapPanel.START_COLOR);
-        this.panel.setPosition(this.end, mapPanel.END_COLOR);
-        this.panel.paintComponent(this.panel.getGraphics());
+        int[] cells = new int[length];
+        for (int c = goal; c != -1; c = state.parent(c)) {
+            cells[--length] = c;
+        }
+        this.path = new Path(cells, size.y);
+        for (int i = 0; i < this.path.length() - 1; i++) {
+            this.setPosition(this.path.get(i), Color.blue);
+        }
+        this.setPosition(this.start, mapPanel.START_COLOR);
+        this.setPosition(this.end, mapPanel.END_COLOR);
+        this.repaintPanel();
     }
 
+    /**
+     * Generate and print path to panel, then return the search state to its pool.
+     */
     @Override
     public void generatePath() throws IllegalArgumentException {
-        Node current = null;
-        Node neighbor;
+        try {
+            search();
+        } finally {
+            if (state != null) {
+                pool.release(state);
+                state = null;
+            }
+        }
+    }
+
+    /**
+     * Runs the search and stores the path.
+     */
+    private void search() throws IllegalArgumentException {
+        int goal = Path.index(end.x, end.y, size.y);
+        int current = -1;
         while (!unvisited.isEmpty()) {
-            current = unvisited.poll();
-            if (current.distance == Integer.MAX_VALUE) {
-                throw new IllegalArgumentException("course cannot be solved.");
+            current = pollSampled(unvisited);
+            int distance = state.g(current);
+            if (unvisited.lastKey() != distance) {
+                continue; // Stale entry, the node was queued again with a shorter distance
             }
-            //neighbors
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    // Insure the current node is not selected
-                    if (i != 0 || j != 0) {
-                        // If the neighbor is on the board
-                        if ((current.position.x + i) >= 0 && (current.position.y + j) >= 0 && (current.position.x + i) < this.size.x && (current.position.y + j) < this.size.y) {
-                            // If the neighbor is wall or inaccessible due to neighboring walls
-                            if (this.nodeMap[current.position.x + i][current.position.y + j].wall || ((i != 0 && j != 0) && (this.nodeMap[current.position.x + i][current.position.y].wall && this.nodeMap[current.position.x][current.position.y + j].wall))) {
-                                continue;
-                            }
-                            neighbor = nodeMap[current.position.x +i][current.position.y +j];
-                            if (neighbor.distance > current.distance + distanceBetween(current.position, neighbor.position)) {
-                                neighbor.distance = current.distance + distanceBetween(current.position, neighbor.position);
-                                neighbor.parent = current;
-                                unvisited.remove(neighbor);
-                                unvisited.add(neighbor);
-                                this.panel.setPosition(neighbor.position, unvisitedColor);
-                            }
-                        }
+            expansions++;
+            int x = current / size.y, y = current % size.y;
+            //neighbors, walls and corners are excluded by the wall grid
+            for (int m = this.walls.neighbors(x, y); m != 0; m &= m - 1) {
+                int d = Integer.numberOfTrailingZeros(m);
+                int neighbor = Path.index(x + Path.DX[d], y + Path.DY[d], size.y);
+                int newDistance = distance + ((d & 1) == 0 ? 10 : 14);
+                if (state.g(neighbor) > newDistance) {
+                    state.setG(neighbor, newDistance);
+                    state.setParent(neighbor, current);
+                    addSampled(unvisited, newDistance, 0, neighbor);
+                    if (panel != null) {
+                        this.setPosition(new Point(x + Path.DX[d], y + Path.DY[d]), unvisitedColor);
                     }
                 }
             }
-            this.panel.setPosition(current.position.x, current.position.y, visitedColor);
-            if (current.end) {
+            if (panel != null) {
+                this.setPosition(new Point(x, y), visitedColor);
+            }
+            if (current == goal) {
                 break;
             }
             if (this.updateWhileRunning) {
                 try {
                     Thread.sleep(1);
                 } catch (InterruptedException e) {
-                    GUI.panelTread.interrupt();
+                    this.stopPanel();
                     return;
                 }
             }
         }
-        if (current == null || !current.end) {
-            GUI.panelTread.interrupt();
+        if (current != goal) {
+            this.stopPanel();
             throw new IllegalArgumentException("course cannot be solved.");
         }
         paintPath();
-        GUI.panelTread.interrupt();
-    }
-
-
-    static class Node implements Comparable<Node> {
-        private final Point position;
-        private Node parent = null;
-        private Integer distance;
-        private boolean end = false, wall = false;
-
-        @Override
-        public int compareTo(Node node) {
-            return this.distance.compareTo(node.distance);
-        }
-
-        Node(Point position, int dist) {
-            this.position = position;
-            this.distance = dist;
-        }
+        this.stopPanel();
     }
 }
@@ -3,7 +3,6 @@ package Pathfinding;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.util.Arrays;
 import javax.swing.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -19,6 +18,7 @@ public class GUI extends JFrame {
     private final mapPanel panel;
     public static Color currentColor = mapPanel.WALL_COLOR;
     public static boolean updateWhileRunning = true;
+    public static AStar.TieBreak tieBreak = AStar.TieBreak.LIFO;
     public static Thread panelTread;
 
     /**
@@ -29,7 +29,7 @@ public class GUI extends JFrame {
         @Override
         public void actionPerformed(ActionEvent e) {
             panel.clearPaths();
-            new Thread(new AStar(panel, updateWhileRunning), "A-Star").start();
+            new Thread(new AStar(panel, updateWhileRunning, tieBreak), "A-Star").start();
         }
     };
 
@@ -45,6 +45,42 @@ public class GUI extends JFrame {
         }
     };
 
+    /**
+     * Action Listener to run the thread that runs the Lazy Theta* any-angle pathfinding algorithm and activates the
+     * panels self painting thread.
+     */
+    public ActionListener thetaStarAction = new ActionListener() {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            panel.clearPaths();
+            new Thread(new ThetaStar(panel, updateWhileRunning), "Theta-Star").start();
+        }
+    };
+
+    /**
+     * Action Listener to run the thread that runs the parallel A-Star pathfinding algorithm, which expands nodes on
+     * every processor, and activates the panels self painting thread.
+     */
+    public ActionListener parallelAStarAction = new ActionListener() {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            panel.clearPaths();
+            new Thread(new ParallelAStar(panel, updateWhileRunning), "Parallel A-Star").start();
+        }
+    };
+
+    /**
+     * Action Listener to run the thread that runs the real-time A-Star pathfinding algorithm, which paints the path a
+     * segment at a time as it commits to it, and activates the panels self painting thread.
+     */
+    public ActionListener realTimeAStarAction = new ActionListener() {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            panel.clearPaths();
+            new Thread(new RealTimeAStar(panel, updateWhileRunning), "Real-Time A-Star").start();
+        }
+    };
+
     /**
      * Constructor for the GUI of the program, sets up MapPanel, button panel and menuBar.
      *
@@ -150,6 +186,18 @@ public class GUI extends JFrame {
         dijkstraButton.addActionListener(dijkstraAction);
         buttonPanel.add(dijkstraButton);
 
+        JButton thetaStarButton = new JButton("Theta-Star");
+        thetaStarButton.addActionListener(thetaStarAction);
+        buttonPanel.add(thetaStarButton);
+
+        JButton parallelAStarButton = new JButton("Parallel A-Star");
+        parallelAStarButton.addActionListener(parallelAStarAction);
+        buttonPanel.add(parallelAStarButton);
+
+        JButton realTimeAStarButton = new JButton("Real-Time A-Star");
+        realTimeAStarButton.addActionListener(realTimeAStarAction);
+        buttonPanel.add(realTimeAStarButton);
+
         return buttonPanel;
     }
 
@@ -179,6 +227,22 @@ public class GUI extends JFrame {
 
         algorithmsMenu.add(updateMenu);
 
+        JMenu tieBreakMenu = new JMenu("A-Star Ties");
+
+        ButtonGroup tieBreakGroup = new ButtonGroup();
+
+        JRadioButtonMenuItem lifoRadio = new JRadioButtonMenuItem("Last Added", true);
+        lifoRadio.addActionListener(e -> tieBreak = AStar.TieBreak.LIFO);
+        tieBreakGroup.add(lifoRadio);
+        tieBreakMenu.add(lifoRadio);
+
+        JRadioButtonMenuItem lowHRadio = new JRadioButtonMenuItem("Closest To End");
+        lowHRadio.addActionListener(e -> tieBreak = AStar.TieBreak.LOW_H);
+        tieBreakGroup.add(lowHRadio);
+        tieBreakMenu.add(lowHRadio);
+
+        algorithmsMenu.add(tieBreakMenu);
+
         JMenuItem aStarActivate = new JMenuItem("A-Star");
         aStarActivate.addActionListener(aStarAction);
         algorithmsMenu.add(aStarActivate);
@@ -187,6 +251,18 @@ public class GUI extends JFrame {
         dijkstraActivate.addActionListener(dijkstraAction);
         algorithmsMenu.add(dijkstraActivate);
 
+        JMenuItem thetaStarActivate = new JMenuItem("Theta-Star");
+        thetaStarActivate.addActionListener(thetaStarAction);
+        algorithmsMenu.add(thetaStarActivate);
+
+        JMenuItem parallelAStarActivate = new JMenuItem("Parallel A-Star");
+        parallelAStarActivate.addActionListener(parallelAStarAction);
+        algorithmsMenu.add(parallelAStarActivate);
+
+        JMenuItem realTimeAStarActivate = new JMenuItem("Real-Time A-Star");
+        realTimeAStarActivate.addActionListener(realTimeAStarAction);
+        algorithmsMenu.add(realTimeAStarActivate);
+
         menuBar.add(algorithmsMenu);
 
         JMenu mapMenu = new JMenu("Map");
@@ -296,332 +372,3 @@ public class GUI extends JFrame {
         new GUI(idealMapSize, (int) (screenSize.height * .8));
     }
 }
-
-class mapPanel extends JPanel implements MouseMotionListener, MouseListener, Runnable {
-    private Color[][] map;
-    private final int scale;
-    public static final Color BORDER_COLOR = Color.black;
-    public static final Color EMPTY_COLOR = Color.white;
-    public static final Color WALL_COLOR = Color.black;
-    public static final Color START_COLOR = Color.orange;
-    public static final Color END_COLOR = Color.cyan;
-
-    /**
-     * Constructor sets panel size and initializes map.
-     *
-     * @param mapSize the size of the map as ints.
-     * @param scale   the scale of the boxes in pixels.
-     */
-    public mapPanel(Point mapSize, int scale) {
-        setPreferredSize(new Dimension(mapSize.x * scale, mapSize.y * scale));
-        this.scale = scale;
-        this.map = new Color[mapSize.x][mapSize.y];
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                map[i][j] = EMPTY_COLOR;
-            }
-        }
-    }
-
-    public String validateFilename(String fileName) throws IOException{
-        fileName = fileName.trim().toLowerCase().replace(" ", "_");
-        if (fileName.endsWith(".map")) {
-            if (System.getProperty("os.name").toLowerCase().equals("win"))
-                fileName = "maps\\" + fileName;
-            else
-                fileName = "maps/" + fileName;
-        } else {
-            if (System.getProperty("os.name").toLowerCase().equals("win"))
-                fileName = "maps\\" + fileName + ".map";
-            else
-                fileName = "maps/" + fileName + ".map";
-        }
-        return fileName;
-    }
-
-    /**
-     * Function to save the current state of the MapPanel to the maps directory.
-     *
-     * @param fileName Desired filename (if it does not contain ".map" it will be appended).
-     * @throws IOException Thrown if file can not be written to.
-     */
-    public void save(String fileName) throws IOException {
-        fileName = validateFilename(fileName);
-        BufferedWriter br = new BufferedWriter(new FileWriter(fileName));
-        br.write(map.length + "," + map[0].length + "\n");
-        int[][] intmap = getIntMap();
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                br.write(intmap[i][j] + ",");
-            }
-            br.write("\n");
-        }
-        br.close();
-    }
-
-    /**
-     * Loads the state of a previous MapPanel from a file in the maps directory.
-     *
-     * @param fileName Desired filename (if it does not contain ".map" it will be appended).
-     * @throws IOException Thrown if file can not be read.
-     */
-    public void load(String fileName) throws IOException {
-        fileName = validateFilename(fileName);
-        BufferedReader br = new BufferedReader(new FileReader(fileName));
-        int[] arr = Arrays.stream(br.readLine().split(",")).mapToInt(Integer::parseInt).toArray();
-        this.map = new Color[arr[0]][arr[1]];
-        for (int i = 0; i < map.length; i++) {
-            arr = Arrays.stream(br.readLine().split(",")).mapToInt(Integer::parseInt).toArray();
-            for (int j = 0; j < map[0].length; j++) {
-                if (arr[j] == 1) {
-                    map[i][j] = WALL_COLOR;
-                } else if (arr[j] == 2) {
-                    map[i][j] = START_COLOR;
-                } else if (arr[j] == 3) {
-                    map[i][j] = END_COLOR;
-                } else {
-                    map[i][j] = EMPTY_COLOR;
-                }
-            }
-        }
-        br.close();
-        paintComponent(getGraphics());
-    }
-    
-    /**
-     * Method to allow MapPanel to be run as a thread, so it can update map for the running algorithm.
-     */
-    @Override
-    public void run() {
-        while (true) {
-            paintComponent(this.getGraphics());
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                break;
-            }
-        }
-    }
-
-    /**
-     * Method to set the x, y position in the map to the provided color.
-     *
-     * @param x x coordinate.
-     * @param y y coordinate.
-     * @param c Color to be set.
-     */
-    public void setPosition(int x, int y, Color c) {
-        map[x][y] = c;
-    }
-
-    /**
-     * Method to set the map to the provided color at the give point.
-     *
-     * @param p Point to be set.
-     * @param c Color to be set.
-     */
-    public void setPosition(Point p, Color c) {
-        map[p.x][p.y] = c;
-    }
-
-    /**
-     * Returns position of starting node.
-     *
-     * @return position of starting node.
-     */
-    public Point getStart() {
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                if (START_COLOR.equals(map[i][j])) {
-                    return new Point(i, j);
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Returns position of ending node.
-     *
-     * @return position of ending node.
-     */
-    public Point getEnd() {
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                if (END_COLOR.equals(map[i][j])) {
-                    return new Point(i, j);
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Returns a int map of the panel.
-     * <p>
-     * map key: 0 = unoccupied, 1 = wall, 2 = start position, 3 = end position
-     *
-     * @return integer map representing current status of MapPanel.
-     */
-    public int[][] getIntMap() {
-        int[][] temp = new int[map.length][map[0].length];
-        for (int i = 0; i < temp.length; i++) {
-            for (int j = 0; j < temp[0].length; j++) {
-                if (WALL_COLOR.equals(map[i][j])) {
-                    temp[i][j] = 1;
-                } else if (START_COLOR.equals(map[i][j])) {
-                    temp[i][j] = 2;
-                } else if (END_COLOR.equals(map[i][j])) {
-                    temp[i][j] = 3;
-                } else {
-                    temp[i][j] = 0;
-                }
-            }
-        }
-        return temp;
-    }
-
-    /**
-     * Clears entire panel.
-     */
-    public void clearMap() {
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                map[i][j] = EMPTY_COLOR;
-            }
-        }
-        this.paintComponent(this.getGraphics());
-    }
-
-    /**
-     * Clears paths from panel excluding walls and the starting and ending positions.
-     */
-    public void clearPaths() {
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                if (!START_COLOR.equals(map[i][j]) && !END_COLOR.equals(map[i][j]) && !WALL_COLOR.equals(map[i][j])) {
-                    map[i][j] = EMPTY_COLOR;
-                }
-            }
-        }
-        this.paintComponent(this.getGraphics());
-    }
-
-    /**
-     * Method that alows drawing on the MapPanel, handles its own painting as thread will not be running.
-     *
-     * @param e MouseEvent to get the position of the cursor.
-     */
-    private void mouseAction(MouseEvent e) {
-        Point p = new Point();
-        p.x = e.getPoint().x / scale;
-        p.y = e.getPoint().y / scale;
-        if (p.x >= 0 && p.x < map.length && p.y >= 0 && p.y < map[0].length) {
-            if (GUI.currentColor == START_COLOR) {
-                for (int i = 0; i < map.length; i++) {
-                    for (int j = 0; j < map[0].length; j++) {
-                        if (map[i][j] == START_COLOR) {
-                            map[i][j] = EMPTY_COLOR;
-                        }
-                    }
-                }
-            } else if (GUI.currentColor == END_COLOR) {
-                for (int i = 0; i < map.length; i++) {
-                    for (int j = 0; j < map[0].length; j++) {
-                        if (map[i][j] == END_COLOR) {
-                            map[i][j] = EMPTY_COLOR;
-                        }
-                    }
-                }
-            }
-            setPosition(p.x, p.y, GUI.currentColor);
-            paintComponent(getGraphics());
-        }
-    }
-
-    /**
-     * Method to paint entire Map Panel.
-     *
-     * @param g graphics to paint with.
-     * @apiNote should be replaced with version that only paints changed squares.
-     */
-    @Override
-    public void paintComponent(Graphics g) {
-        for (int i = 0; i < this.map.length; i++) {
-            for (int j = 0; j < this.map[0].length; j++) {
-                g.setColor(map[i][j]);
-                g.fillRect(i * this.scale, j * this.scale, this.scale, this.scale);
-                g.setColor(BORDER_COLOR);
-                g.drawRect(i * scale, j * scale, scale, scale);
-            }
-        }
-    }
-
-    /**
-     * Passes to mouseAction.
-     *
-     * @param e MouseEvent to pass to mouseAction.
-     */
-    @Override
-    public void mousePressed(MouseEvent e) {
-        mouseAction(e);
-    }
-
-    /**
-     * Passes to mouseAction.
-     *
-     * @param e MouseEvent to pass to mouseAction.
-     */
-    @Override
-    public void mouseDragged(MouseEvent e) {
-        mouseAction(e);
-    }
-
-    /**
-     * Not used.
-     *
-     * @param e not used.
-     */
-    @Override
-    public void mouseMoved(MouseEvent e) {
-    }
-
-    /**
-     * Not used.
-     *
-     * @param e not used.
-     */
-    @Override
-    public void mouseClicked(MouseEvent e) {
-    }
-
-    /**
-     * Not used.
-     *
-     * @param e not used.
-     */
-    @Override
-    public void mouseReleased(MouseEvent e) {
-
-    }
-
-    /**
-     * Not used.
-     *
-     * @param e not used.
-     */
-    @Override
-    public void mouseEntered(MouseEvent e) {
-    }
-
-    /**
-     * Not used.
-     *
-     * @param e not used.
-     */
-    @Override
-    public void mouseExited(MouseEvent e) {
-    }
-
-}
-
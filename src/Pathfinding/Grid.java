@@ -0,0 +1,89 @@
+package Pathfinding;
+
+/**
+ * Read only view of the walls of a map, shared by every algorithm regardless of how the walls are stored.
+ */
+public interface Grid {
+
+    /**
+     * Returns the width of the grid.
+     *
+     * @return width of the grid.
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the grid.
+     *
+     * @return height of the grid.
+     */
+    int getHeight();
+
+    /**
+     * Checks if the given cell is a wall, cells outside of the grid are treated as walls.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return true if the cell is a wall or off the grid.
+     */
+    boolean isWall(int x, int y);
+
+    /**
+     * Calculates the moves that can be made out of a cell. A move is valid if the neighbor is not a wall and, for a
+     * diagonal move, at least one of the two cells beside it is not a wall.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return mask with bit d set if the move (Path.DX[d], Path.DY[d]) is valid.
+     */
+    default int neighbors(int x, int y) {
+        int mask = 0;
+        for (int d = 0; d < Path.DX.length; d++) {
+            int nx = x + Path.DX[d], ny = y + Path.DY[d];
+            // Diagonal moves are odd, they are inaccessible if both cells beside them are walls
+            if (!isWall(nx, ny) && ((d & 1) == 0 || !isWall(nx, y) || !isWall(x, ny))) {
+                mask |= 1 << d;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if a straight line can be travelled between two cells, tracing the line with Bresenham's algorithm and
+     * applying the same corner rule as neighbors.
+     *
+     * @param x1 originating x coordinate.
+     * @param y1 originating y coordinate.
+     * @param x2 ending x coordinate.
+     * @param y2 ending y coordinate.
+     * @return true if no cell along the line is blocked.
+     */
+    default boolean lineOfSight(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x2 - x1), dy = Math.abs(y2 - y1);
+        int sx = Integer.signum(x2 - x1), sy = Integer.signum(y2 - y1);
+        int x = x1, y = y1;
+        int error = dx - dy;
+        while (x != x2 || y != y2) {
+            int e2 = 2 * error;
+            int nx = x, ny = y;
+            if (e2 > -dy) {
+                error -= dy;
+                nx += sx;
+            }
+            if (e2 < dx) {
+                error += dx;
+                ny += sy;
+            }
+            // A diagonal step is inaccessible if both cells beside it are walls
+            if (nx != x && ny != y && isWall(nx, y) && isWall(x, ny)) {
+                return false;
+            }
+            x = nx;
+            y = ny;
+            if (isWall(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
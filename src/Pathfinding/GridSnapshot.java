@@ -0,0 +1,272 @@
+package Pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, versioned snapshot of the walls of a map that any number of searches can share without copying.
+ * <p>
+ * Walls are stored in 64 x 64 tiles, one long per row of a tile, and the tiles are held in a two level tree: the root
+ * holds chunks of tile references and each chunk holds about the square root of the number of tiles. Editing a cell
+ * returns a new snapshot that shares everything with its parent except the path down to the tile that changed, so an
+ * edit copies one tile, one chunk and the root instead of the whole map, and searches running on the older version
+ * are unaffected.
+ */
+public final class GridSnapshot implements Grid {
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    private final long[][][] chunks; // Tile t is chunks[t >> chunkShift][t & chunkMask]
+    private final int width, height, tilesPerRow, chunkShift, chunkMask;
+    private final long version;
+
+    /**
+     * Creates a snapshot from its chunks of tiles.
+     *
+     * @param chunks  chunks of tiles ordered row by row, never modified once the snapshot exists.
+     * @param width   width of the map.
+     * @param height  height of the map.
+     * @param version version number of the snapshot.
+     */
+    private GridSnapshot(long[][][] chunks, int width, int height, long version) {
+        this.chunks = chunks;
+        this.width = width;
+        this.height = height;
+        this.tilesPerRow = (width + TILE_MASK) >> TILE_SHIFT;
+        this.chunkShift = chunkShift(tileCount(width, height));
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.version = version;
+    }
+
+    /**
+     * Returns the number of tiles of a map.
+     */
+    private static int tileCount(int width, int height) {
+        return ((width + TILE_MASK) >> TILE_SHIFT) * ((height + TILE_MASK) >> TILE_SHIFT);
+    }
+
+    /**
+     * Returns the log of the chunk size, half the bits of the number of tiles rounded up, so the root and each chunk
+     * hold about the square root of the number of tiles.
+     */
+    private static int chunkShift(int tiles) {
+        return (33 - Integer.numberOfLeadingZeros(Math.max(1, tiles - 1))) >> 1;
+    }
+
+    /**
+     * Creates the first version of a snapshot from an integer map.
+     *
+     * @param map integer map, 1 marks a wall.
+     * @return snapshot of the walls.
+     */
+    public static GridSnapshot of(int[][] map) {
+        Editor editor = empty(map.length, map[0].length).edit();
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                if (map[i][j] == 1) {
+                    editor.set(i, j, true);
+                }
+            }
+        }
+        return editor.build();
+    }
+
+    /**
+     * Creates the first version of a snapshot with no walls.
+     *
+     * @param width  width of the map.
+     * @param height height of the map.
+     * @return empty snapshot.
+     */
+    public static GridSnapshot empty(int width, int height) {
+        int tiles = tileCount(width, height);
+        int shift = chunkShift(tiles);
+        // Every tile starts out as the same empty tile in the same chunk, both are copied the first time a wall is
+        // placed in them
+        long[] blank = new long[TILE_SIZE];
+        long[][] blankChunk = new long[1 << shift][];
+        Arrays.fill(blankChunk, blank);
+        long[][][] chunks = new long[(tiles + (1 << shift) - 1) >> shift][][];
+        Arrays.fill(chunks, blankChunk);
+        return new GridSnapshot(chunks, width, height, 0);
+    }
+
+    /**
+     * Returns the version of the snapshot, each edit increases it by one.
+     *
+     * @return version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the width of the grid.
+     *
+     * @return width of the grid.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     *
+     * @return height of the grid.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if the given cell is a wall, cells outside of the grid are treated as walls.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return true if the cell is a wall or off the grid.
+     */
+    @Override
+    public boolean isWall(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return true;
+        }
+        return (row(x, y) & (1L << x)) != 0;
+    }
+
+    /**
+     * Returns the word holding the row of the tile that contains the given cell, bit (x & 63) is the cell.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return row of wall bits.
+     */
+    private long row(int x, int y) {
+        return tile(x, y)[y & TILE_MASK];
+    }
+
+    /**
+     * Returns the tile that contains the given cell.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return tile of the cell.
+     */
+    private long[] tile(int x, int y) {
+        int id = (y >> TILE_SHIFT) * tilesPerRow + (x >> TILE_SHIFT);
+        return chunks[id >> chunkShift][id & chunkMask];
+    }
+
+    /**
+     * Calculates the moves that can be made out of a cell. Cells away from the edge of their tile read the three rows
+     * around them from one tile, the rest fall back to checking each neighbor.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return mask with bit d set if the move (Path.DX[d], Path.DY[d]) is valid.
+     */
+    @Override
+    public int neighbors(int x, int y) {
+        int lx = x & TILE_MASK, ly = y & TILE_MASK;
+        if (lx == 0 || lx == TILE_MASK || ly == 0 || ly == TILE_MASK || x + 1 >= width || y + 1 >= height) {
+            return Grid.super.neighbors(x, y);
+        }
+        long[] tile = tile(x, y);
+        int up = ~(int) (tile[ly - 1] >>> (lx - 1));
+        int middle = ~(int) (tile[ly] >>> (lx - 1));
+        int down = ~(int) (tile[ly + 1] >>> (lx - 1));
+        int east = (middle >>> 2) & 1;
+        int south = (down >>> 1) & 1;
+        int west = middle & 1;
+        int north = (up >>> 1) & 1;
+        int southEast = (down >>> 2) & (east | south) & 1;
+        int southWest = down & (west | south) & 1;
+        int northWest = up & (west | north) & 1;
+        int northEast = (up >>> 2) & (east | north) & 1;
+        return east | southEast << 1 | south << 2 | southWest << 3 | west << 4 | northWest << 5 | north << 6 | northEast << 7;
+    }
+
+    /**
+     * Returns a snapshot with a single cell changed, sharing every other tile with this snapshot.
+     *
+     * @param x    x coordinate.
+     * @param y    y coordinate.
+     * @param wall true to place a wall, false to remove it.
+     * @return this snapshot if the cell already had that value, otherwise the next version.
+     */
+    public GridSnapshot withWall(int x, int y, boolean wall) {
+        if (isWall(x, y) == wall) {
+            return this;
+        }
+        return edit().set(x, y, wall).build();
+    }
+
+    /**
+     * Starts a batch of edits, the root and each chunk and tile touched by the batch are copied once.
+     *
+     * @return editor based on this snapshot.
+     */
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * Collects edits to a snapshot and builds the next version.
+     */
+    public static final class Editor {
+        private final GridSnapshot base;
+        private long[][][] chunks; // Copied on the first edit
+        private boolean[][] copied; // Copied tiles of each copied chunk, null until the chunk is copied
+        private boolean built = false;
+
+        private Editor(GridSnapshot base) {
+            this.base = base;
+        }
+
+        /**
+         * Sets or clears a wall.
+         *
+         * @param x    x coordinate, must be on the map.
+         * @param y    y coordinate, must be on the map.
+         * @param wall true to place a wall, false to remove it.
+         * @return this editor.
+         */
+        public Editor set(int x, int y, boolean wall) {
+            if (built) {
+                throw new IllegalStateException("snapshot has already been built.");
+            }
+            if (chunks == null) {
+                chunks = base.chunks.clone();
+                copied = new boolean[chunks.length][];
+            }
+            int id = (y >> TILE_SHIFT) * base.tilesPerRow + (x >> TILE_SHIFT);
+            int c = id >> base.chunkShift, t = id & base.chunkMask;
+            if (copied[c] == null) {
+                chunks[c] = chunks[c].clone();
+                copied[c] = new boolean[chunks[c].length];
+            }
+            if (!copied[c][t]) {
+                chunks[c][t] = chunks[c][t].clone();
+                copied[c][t] = true;
+            }
+            if (wall) {
+                chunks[c][t][y & TILE_MASK] |= 1L << x;
+            } else {
+                chunks[c][t][y & TILE_MASK] &= ~(1L << x);
+            }
+            return this;
+        }
+
+        /**
+         * Builds the next version, the editor must not be used afterwards.
+         *
+         * @return new snapshot.
+         */
+        public GridSnapshot build() {
+            built = true;
+            return new GridSnapshot(chunks == null ? base.chunks : chunks, base.width, base.height,
+                    base.version + 1);
+        }
+    }
+}
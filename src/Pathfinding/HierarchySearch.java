@@ -0,0 +1,40 @@
+package Pathfinding;
+
+import java.awt.*;
+
+/**
+ * Answers a query with a precomputed contraction hierarchy instead of searching the grid.
+ */
+public class HierarchySearch extends Algorithm {
+    private final ContractionHierarchy index;
+
+    /**
+     * Constructor for running the query without a panel.
+     *
+     * @param index contraction hierarchy built for the map.
+     * @param walls walls of the map the index was built for, only their size is checked, so check the index with
+     *              ContractionHierarchy.matches once when it is loaded.
+     * @param start starting position.
+     * @param end   ending position.
+     */
+    public HierarchySearch(ContractionHierarchy index, Grid walls, Point start, Point end) {
+        super(walls, start, end);
+        if (!index.hasSizeOf(walls)) {
+            throw new IllegalArgumentException("index was built for a different map.");
+        }
+        this.index = index;
+    }
+
+    /**
+     * Generate the path by querying the index.
+     */
+    @Override
+    public void generatePath() throws IllegalArgumentException {
+        ContractionHierarchy.Result result = this.index.query(this.start, this.end);
+        this.expansions = result.settled;
+        if (result.path == null) {
+            throw new IllegalArgumentException("course cannot be solved.");
+        }
+        this.path = result.path;
+    }
+}
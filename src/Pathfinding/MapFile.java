@@ -0,0 +1,277 @@
+package Pathfinding;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Reads map files into integer maps and writes grids as MovingAI maps.
+ * <p>
+ * Two formats are understood: the format written by MapPanel, where the first line holds the width and height and each
+ * following line holds one column of comma separated cells, and the MovingAI benchmark format, which starts with
+ * "type octile" and stores one row of characters per line.
+ * <p>
+ * map key: 0 = unoccupied, 1 = wall, 2 = start position, 3 = end position
+ */
+final class MapFile {
+
+    private MapFile() {
+    }
+
+    /**
+     * Reads a map file in either supported format.
+     *
+     * @param fileName path of the map file.
+     * @return integer map indexed [x][y].
+     * @throws IOException Thrown if file can not be read or is malformed.
+     */
+    static int[][] read(String fileName) throws IOException {
+        SearchEvents.MapIO event = SearchEvents.mapIO("read", fileName);
+        int[][] map = readFile(fileName);
+        event.width = map.length;
+        event.height = map[0].length;
+        event.commit();
+        return map;
+    }
+
+    /**
+     * Reads a map file, telling the formats apart by the first line.
+     *
+     * @param fileName path of the map file.
+     * @return integer map indexed [x][y].
+     * @throws IOException Thrown if file can not be read or is malformed.
+     */
+    private static int[][] readFile(String fileName) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+            String header = br.readLine();
+            if (header == null) {
+                throw new IOException(fileName + " is empty.");
+            }
+            if (header.startsWith("type")) {
+                return readMovingAI(br, fileName);
+            }
+            int[] arr = Arrays.stream(header.split(",")).mapToInt(Integer::parseInt).toArray();
+            int[][] map = new int[arr[0]][arr[1]];
+            for (int i = 0; i < map.length; i++) {
+                String line = br.readLine();
+                if (line == null) {
+                    throw new IOException(fileName + " ended after " + i + " of " + map.length + " columns.");
+                }
+                arr = Arrays.stream(line.split(",")).mapToInt(Integer::parseInt).toArray();
+                System.arraycopy(arr, 0, map[i], 0, map[0].length);
+            }
+            return map;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+            throw new IOException(fileName + " is not a valid map file.", exception);
+        }
+    }
+
+    /**
+     * Checks if a map file is in the MovingAI format, which can be streamed a row at a time with Rows.
+     *
+     * @param fileName path of the map file.
+     * @return true if the file starts with a "type" line.
+     * @throws IOException Thrown if file can not be read.
+     */
+    static boolean isMovingAI(String fileName) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+            String header = br.readLine();
+            return header != null && header.startsWith("type");
+        }
+    }
+
+    /**
+     * Reads the header of a MovingAI map up to the "map" line, the "type" line has already been consumed.
+     *
+     * @param br       reader positioned after the "type" line.
+     * @param fileName path of the map file, used in error messages.
+     * @return width and height of the map.
+     * @throws IOException Thrown if file can not be read or is malformed.
+     */
+    private static int[] readMovingAIHeader(BufferedReader br, String fileName) throws IOException {
+        int width = -1, height = -1;
+        String line;
+        while ((line = br.readLine()) != null && !line.trim().equals("map")) {
+            String[] field = line.trim().split("\\s+");
+            if (field[0].equals("height")) {
+                height = Integer.parseInt(field[1]);
+            } else if (field[0].equals("width")) {
+                width = Integer.parseInt(field[1]);
+            }
+        }
+        if (line == null || width < 0 || height < 0) {
+            throw new IOException(fileName + " is missing its width, height or map section.");
+        }
+        return new int[]{width, height};
+    }
+
+    /**
+     * Checks if a character of a MovingAI map is passable, '.', 'G' and 'S' are and every other character is a wall.
+     */
+    private static boolean isOpen(char c) {
+        return c == '.' || c == 'G' || c == 'S';
+    }
+
+    /**
+     * Reads the body of a MovingAI map, the "type" line has already been consumed. '.', 'G' and 'S' cells are
+     * passable, every other character is a wall.
+     *
+     * @param br       reader positioned after the "type" line.
+     * @param fileName path of the map file, used in error messages.
+     * @return integer map indexed [x][y].
+     * @throws IOException Thrown if file can not be read or is malformed.
+     */
+    private static int[][] readMovingAI(BufferedReader br, String fileName) throws IOException {
+        int[] size = readMovingAIHeader(br, fileName);
+        int width = size[0], height = size[1];
+        int[][] map = new int[width][height];
+        for (int j = 0; j < height; j++) {
+            String line = br.readLine();
+            if (line == null || line.length() < width) {
+                throw new IOException(fileName + " has a short or missing row " + j + ".");
+            }
+            for (int i = 0; i < width; i++) {
+                char c = line.charAt(i);
+                map[i][j] = isOpen(c) ? 0 : 1;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Writes any grid as a MovingAI map, one row at a time so the grid is read in row order and never held in memory.
+     *
+     * @param walls    grid to write.
+     * @param fileName path of the map file.
+     * @throws IOException Thrown if file can not be written to.
+     */
+    static void writeMovingAI(Grid walls, String fileName) throws IOException {
+        SearchEvents.MapIO event = SearchEvents.mapIO("write", fileName);
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+            out.write("type octile\nheight " + walls.getHeight() + "\nwidth " + walls.getWidth() + "\nmap\n");
+            char[] row = new char[walls.getWidth()];
+            for (int j = 0; j < walls.getHeight(); j++) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = walls.isWall(i, j) ? '@' : '.';
+                }
+                out.write(row);
+                out.write('\n');
+            }
+        }
+        event.width = walls.getWidth();
+        event.height = walls.getHeight();
+        event.commit();
+    }
+
+    /**
+     * Grid over a MovingAI map file that reads the rows as they are asked for and keeps only the current one, so a
+     * map of any size can be converted without holding it in memory. Rows must be read in order, as writeMovingAI and
+     * TiledGrid.write do, and the grid is only meant for a single thread.
+     */
+    static final class Rows implements Grid, Closeable {
+        private final BufferedReader br;
+        private final String fileName;
+        private final int width, height;
+        private final long[] row; // Bit x is set for a wall in the current row
+        private int y = -1; // Current row
+        private final SearchEvents.MapIO event;
+
+        /**
+         * Opens a MovingAI map file and reads its header.
+         *
+         * @param fileName path of the map file.
+         * @throws IOException Thrown if file can not be read or is not a MovingAI map.
+         */
+        Rows(String fileName) throws IOException {
+            this.event = SearchEvents.mapIO("read", fileName);
+            this.fileName = fileName;
+            this.br = new BufferedReader(new FileReader(fileName), 1 << 16);
+            try {
+                String header = br.readLine();
+                if (header == null || !header.startsWith("type")) {
+                    throw new IOException(fileName + " is not a MovingAI map.");
+                }
+                int[] size = readMovingAIHeader(br, fileName);
+                this.width = size[0];
+                this.height = size[1];
+            } catch (IOException | NumberFormatException exception) {
+                br.close();
+                throw exception instanceof IOException ? (IOException) exception
+                        : new IOException(fileName + " is not a valid map file.", exception);
+            }
+            this.row = new long[(width + 63) >>> 6];
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Checks if the given cell is a wall, reading ahead to its row.
+         *
+         * @param x x coordinate.
+         * @param y y coordinate, at least the row last read.
+         * @return true if the cell is a wall or off the grid.
+         * @throws IllegalStateException Thrown if the row has already been passed.
+         */
+        @Override
+        public boolean isWall(int x, int y) {
+            if (x < 0 || y < 0 || x >= width || y >= height) {
+                return true;
+            }
+            if (y < this.y) {
+                throw new IllegalStateException("row " + y + " of " + fileName + " has already been read.");
+            }
+            while (this.y < y) {
+                next();
+            }
+            return (row[x >>> 6] & (1L << x)) != 0;
+        }
+
+        /**
+         * Reads the next row into the row bitmap.
+         */
+        private void next() {
+            String line;
+            try {
+                line = br.readLine();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(fileName + " could not be read.", exception);
+            }
+            y++;
+            if (line == null || line.length() < width) {
+                throw new UncheckedIOException(new IOException(fileName + " has a short or missing row " + y + "."));
+            }
+            Arrays.fill(row, 0);
+            for (int i = 0; i < width; i++) {
+                if (!isOpen(line.charAt(i))) {
+                    row[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        /**
+         * Closes the map file.
+         *
+         * @throws IOException Thrown if the file can not be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            br.close();
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package Pathfinding;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Seedable generator of large maps for stress and scaling tests, read through the Grid interface.
+ * <p>
+ * The map is split into 64 x 64 tiles and every tile is generated from the seed and its own coordinates only, so the
+ * same seed gives the same map whatever the number of threads or the order tiles are generated in. Tiles are made a
+ * band of rows at a time, with the tiles of a band generated in parallel, and only the current band is kept in
+ * memory. Reading the grid in row order, as MapFile.writeMovingAI and TiledGrid.write do, therefore streams maps of
+ * any size to disk.
+ * <p>
+ * Maps from MAZE and ROOMS are always connected, the others may contain closed off areas.
+ */
+public final class MapGenerator implements Grid {
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int CAVE_STEPS = 4; // Smoothing steps of the cave automaton, also the margin a tile reads
+
+    /**
+     * Kinds of map that can be generated.
+     */
+    public enum Type {
+        /**
+         * Every cell is a wall with probability density.
+         */
+        RANDOM(0.3),
+        /**
+         * Perfect maze of one cell wide corridors, each tile carved by a recursive backtracker and joined to the tile
+         * above or to the left.
+         */
+        MAZE(0),
+        /**
+         * One room per tile joined by corridors to the rooms of neighboring tiles.
+         */
+        ROOMS(0),
+        /**
+         * Caves from a cellular automaton run over random noise where a cell is a wall with probability density.
+         */
+        CAVES(0.45),
+        /**
+         * Open ground with small obstacles covering roughly density of the map.
+         */
+        OPEN(0.05);
+
+        final double defaultDensity;
+
+        Type(double defaultDensity) {
+            this.defaultDensity = defaultDensity;
+        }
+    }
+
+    private final Type type;
+    private final int width, height, tilesPerRow, bandTileRows;
+    private final long seed;
+    private final double density;
+    private volatile Band band; // Band of tiles read last, replaced when a row outside of it is read
+
+    /**
+     * Creates a generator using the default density of the type.
+     *
+     * @param type   kind of map.
+     * @param width  width of the map.
+     * @param height height of the map.
+     * @param seed   seed, equal seeds give equal maps.
+     */
+    public MapGenerator(Type type, int width, int height, long seed) {
+        this(type, width, height, seed, type.defaultDensity);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param type    kind of map.
+     * @param width   width of the map.
+     * @param height  height of the map.
+     * @param seed    seed, equal seeds give equal maps.
+     * @param density fraction of walls for RANDOM, CAVES and OPEN, ignored by the others.
+     */
+    public MapGenerator(Type type, int width, int height, long seed, double density) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("map must be at least 1 x 1.");
+        }
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("density must be between 0 and 1.");
+        }
+        this.type = type;
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.density = density;
+        this.tilesPerRow = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+        // Enough rows of tiles in a band to give every processor a few tiles
+        int wanted = 4 * Runtime.getRuntime().availableProcessors();
+        this.bandTileRows = Math.max(1, Math.min((wanted + tilesPerRow - 1) / tilesPerRow, 64));
+    }
+
+    /**
+     * Returns the width of the grid.
+     *
+     * @return width of the grid.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     *
+     * @return height of the grid.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if the given cell is a wall, generating the band of tiles that holds it if it is not the current one.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return true if the cell is a wall or off the grid.
+     */
+    @Override
+    public boolean isWall(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return true;
+        }
+        Band b = band;
+        int ty = y >> TILE_SHIFT;
+        if (b == null || ty < b.firstTileRow || ty >= b.firstTileRow + bandTileRows) {
+            b = band(ty);
+        }
+        long[] tile = b.tiles[(ty - b.firstTileRow) * tilesPerRow + (x >> TILE_SHIFT)];
+        return (tile[y & (TILE_SIZE - 1)] & (1L << x)) != 0;
+    }
+
+    /**
+     * Generates the band starting at the given row of tiles, unless another thread just did.
+     *
+     * @param tileRow row of tiles that must be in the band.
+     * @return the band.
+     */
+    private synchronized Band band(int tileRow) {
+        Band b = band;
+        if (b != null && tileRow >= b.firstTileRow && tileRow < b.firstTileRow + bandTileRows) {
+            return b;
+        }
+        int first = tileRow - tileRow % bandTileRows;
+        int rows = Math.min(bandTileRows, ((height + TILE_SIZE - 1) >> TILE_SHIFT) - first);
+        long[][] tiles = new long[bandTileRows * tilesPerRow][];
+        IntStream.range(0, rows * tilesPerRow).parallel()
+                .forEach(i -> tiles[i] = tile(i % tilesPerRow, first + i / tilesPerRow));
+        b = new Band(first, tiles);
+        band = b;
+        return b;
+    }
+
+    /**
+     * Generates one tile. Bit x of row y is set if cell (x, y) of the tile is a wall; cells past the edge of the map
+     * are left as walls.
+     *
+     * @param tx column of the tile.
+     * @param ty row of the tile.
+     * @return rows of the tile.
+     */
+    long[] tile(int tx, int ty) {
+        int tw = Math.min(TILE_SIZE, width - (tx << TILE_SHIFT));
+        int th = Math.min(TILE_SIZE, height - (ty << TILE_SHIFT));
+        long[] rows = new long[TILE_SIZE];
+        Arrays.fill(rows, -1L);
+        SplittableRandom random = new SplittableRandom(hash(seed, tx, ty));
+        switch (type) {
+            case RANDOM:
+                for (int y = 0; y < th; y++) {
+                    for (int x = 0; x < tw; x++) {
+                        if (random.nextDouble() >= density) {
+                            rows[y] &= ~(1L << x);
+                        }
+                    }
+                }
+                break;
+            case MAZE:
+                maze(rows, tx, ty, tw, th, random);
+                break;
+            case ROOMS:
+                rooms(rows, tx, ty, tw, th, random);
+                break;
+            case CAVES:
+                caves(rows, tx, ty, tw, th);
+                break;
+            case OPEN:
+                carve(rows, 0, 0, tw - 1, th - 1);
+                // Obstacles of 1 to 4 cells square, about density of the tile in total
+                int obstacles = (int) Math.round(density * tw * th / 6.25);
+                for (int i = 0; i < obstacles; i++) {
+                    int w = 1 + random.nextInt(4), h = 1 + random.nextInt(4);
+                    int x = random.nextInt(tw), y = random.nextInt(th);
+                    for (int j = y; j < Math.min(th, y + h); j++) {
+                        rows[j] |= ((1L << w) - 1) << x; // Bits shifted past the tile are dropped
+                    }
+                }
+                break;
+        }
+        return rows;
+    }
+
+    /**
+     * Carves a maze into a tile. Corridor cells sit at odd local coordinates, so the first row and column of every
+     * tile are walls between it and the tiles above and to the left. Each tile opens a door to the tile above or to the
+     * left (the binary tree algorithm over tiles), which joins the tile mazes into one spanning tree.
+     */
+    private void maze(long[] rows, int tx, int ty, int tw, int th, SplittableRandom random) {
+        int cw = tw / 2, ch = th / 2; // Corridor cells of the tile
+        if (cw == 0 || ch == 0) {
+            return; // A strip along the edge of the map, no tile depends on it
+        }
+        boolean[] visited = new boolean[cw * ch];
+        int[] stack = new int[cw * ch];
+        int size = 0;
+        int startCell = random.nextInt(cw * ch);
+        stack[size++] = startCell;
+        visited[startCell] = true;
+        carve(rows, 2 * (startCell % cw) + 1, 2 * (startCell / cw) + 1, 2 * (startCell % cw) + 1, 2 * (startCell / cw) + 1);
+        int[] options = new int[4];
+        while (size > 0) {
+            int cell = stack[size - 1];
+            int cx = cell % cw, cy = cell / cw;
+            int count = 0;
+            if (cx > 0 && !visited[cell - 1]) options[count++] = cell - 1;
+            if (cx + 1 < cw && !visited[cell + 1]) options[count++] = cell + 1;
+            if (cy > 0 && !visited[cell - cw]) options[count++] = cell - cw;
+            if (cy + 1 < ch && !visited[cell + cw]) options[count++] = cell + cw;
+            if (count == 0) {
+                size--;
+                continue;
+            }
+            int next = options[random.nextInt(count)];
+            visited[next] = true;
+            stack[size++] = next;
+            // Carve the next cell and the wall between it and the current one
+            carve(rows, 2 * cx + 1, 2 * cy + 1, 2 * (next % cw) + 1, 2 * (next / cw) + 1);
+        }
+        if (opensWest(tx, ty)) {
+            int y = 2 * random.nextInt(ch) + 1;
+            carve(rows, 0, y, 0, y);
+        } else if (ty > 0) {
+            int x = 2 * random.nextInt(cw) + 1;
+            carve(rows, x, 0, x, 0);
+        }
+    }
+
+    /**
+     * Places a room in a tile and corridors from it to the doors on the edges of the tile. The door on an edge is at
+     * a position hashed from the edge, so the tiles on both sides agree on it. Every tile is joined to the tile above
+     * or to the left, and other edges are opened at random to add loops.
+     */
+    private void rooms(long[] rows, int tx, int ty, int tw, int th, SplittableRandom random) {
+        if (tw < 12 || th < 12) {
+            carve(rows, 0, 0, tw - 1, th - 1); // Too small for a room, leave it open
+            return;
+        }
+        int rw = 4 + random.nextInt(Math.min(tw - 8, 24)), rh = 4 + random.nextInt(Math.min(th - 8, 24));
+        int rx = 2 + random.nextInt(tw - rw - 3), ry = 2 + random.nextInt(th - rh - 3);
+        carve(rows, rx, ry, rx + rw - 1, ry + rh - 1);
+        int cx = rx + rw / 2, cy = ry + rh / 2;
+        boolean lastColumn = tx == tilesPerRow - 1, lastRow = (ty + 1) << TILE_SHIFT >= height;
+        if (tx > 0 && verticalDoorOpen(tx, ty)) {
+            int p = door(tx, ty, 0, th);
+            carve(rows, 0, p, cx, p);
+            carve(rows, cx, p, cx, cy);
+        }
+        if (!lastColumn && verticalDoorOpen(tx + 1, ty)) {
+            int p = door(tx + 1, ty, 0, th);
+            carve(rows, cx, p, tw - 1, p);
+            carve(rows, cx, p, cx, cy);
+        }
+        if (ty > 0 && horizontalDoorOpen(tx, ty)) {
+            int p = door(tx, ty, 1, tw);
+            carve(rows, p, 0, p, cy);
+            carve(rows, p, cy, cx, cy);
+        }
+        if (!lastRow && horizontalDoorOpen(tx, ty + 1)) {
+            int p = door(tx, ty + 1, 1, tw);
+            carve(rows, p, cy, p, th - 1);
+            carve(rows, p, cy, cx, cy);
+        }
+    }
+
+    /**
+     * Checks if the edge on the left of tile (tx, ty) has a door.
+     */
+    private boolean verticalDoorOpen(int tx, int ty) {
+        return opensWest(tx, ty) || (hash(seed, tx, ty, 2) & 3) == 0;
+    }
+
+    /**
+     * Checks if the edge above tile (tx, ty) has a door.
+     */
+    private boolean horizontalDoorOpen(int tx, int ty) {
+        return !opensWest(tx, ty) || (hash(seed, tx, ty, 3) & 3) == 0;
+    }
+
+    /**
+     * Chooses whether tile (tx, ty) joins the spanning tree through its left edge rather than its top edge.
+     */
+    private boolean opensWest(int tx, int ty) {
+        return tx > 0 && (ty == 0 || (hash(seed, tx, ty, 1) & 1) == 0);
+    }
+
+    /**
+     * Position of the door on the left (side 0) or top (side 1) edge of tile (tx, ty), away from its corners.
+     */
+    private int door(int tx, int ty, int side, int length) {
+        return 3 + (int) Long.remainderUnsigned(hash(seed, tx, ty, 4 + side), length - 6);
+    }
+
+    /**
+     * Grows caves in a tile by smoothing noise: a cell becomes a wall if at least five of the nine cells around it are
+     * walls. The noise is hashed from the cell's map coordinates, so a tile reads a margin of CAVE_STEPS cells around
+     * itself and agrees with its neighbors along the edges.
+     */
+    private void caves(long[] rows, int tx, int ty, int tw, int th) {
+        int m = CAVE_STEPS, size = TILE_SIZE + 2 * m;
+        int ox = (tx << TILE_SHIFT) - m, oy = (ty << TILE_SHIFT) - m;
+        boolean[] wall = new boolean[size * size], next = new boolean[size * size];
+        long threshold = (long) (density * (1L << 53));
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int gx = ox + x, gy = oy + y;
+                wall[y * size + x] = gx < 0 || gy < 0 || gx >= width || gy >= height
+                        || (hash(seed, gx, gy, 6) >>> 11) < threshold;
+            }
+        }
+        for (int step = 0; step < CAVE_STEPS; step++) {
+            // Only cells at least step + 1 away from the edge of the area have all their neighbors up to date
+            for (int y = step + 1; y < size - step - 1; y++) {
+                for (int x = step + 1; x < size - step - 1; x++) {
+                    int count = 0;
+                    for (int dy = -1; dy <= 1; dy++) {
+                        for (int dx = -1; dx <= 1; dx++) {
+                            if (wall[(y + dy) * size + x + dx]) {
+                                count++;
+                            }
+                        }
+                    }
+                    int gx = ox + x, gy = oy + y;
+                    next[y * size + x] = count >= 5 || gx < 0 || gy < 0 || gx >= width || gy >= height;
+                }
+            }
+            boolean[] swap = wall;
+            wall = next;
+            next = swap;
+        }
+        for (int y = 0; y < th; y++) {
+            for (int x = 0; x < tw; x++) {
+                if (!wall[(y + m) * size + x + m]) {
+                    rows[y] &= ~(1L << x);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the walls of every cell in the rectangle spanned by two corners, in any order.
+     */
+    private static void carve(long[] rows, int x0, int y0, int x1, int y1) {
+        int left = Math.min(x0, x1), right = Math.max(x0, x1);
+        long mask = (right == 63 ? -1L : (1L << (right + 1)) - 1) & (-1L << left);
+        for (int y = Math.min(y0, y1); y <= Math.max(y0, y1); y++) {
+            rows[y] &= ~mask;
+        }
+    }
+
+    /**
+     * Mixes a seed and up to three coordinates into 64 well spread bits (SplitMix64 finalizer).
+     */
+    private static long hash(long seed, int a, int b, int c) {
+        long h = seed ^ (a * 0x9E3779B97F4A7C15L) ^ (b * 0xC2B2AE3D27D4EB4FL) ^ (c * 0x165667B19E3779F9L);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static long hash(long seed, int a, int b) {
+        return hash(seed, a, b, 0);
+    }
+
+    /**
+     * Prints usage and exits.
+     */
+    private static void usage() {
+        System.err.println("usage: MapGenerator <random|maze|rooms|caves|open> <width> <height> <output .map or .tiles file> [options]");
+        System.err.println("  --seed n        seed, default 0");
+        System.err.println("  --density p     fraction of walls for random, caves and open");
+        System.err.println("  --tile-size n   tile size of a .tiles output, default 256");
+        System.exit(2);
+    }
+
+    /**
+     * Main method, generates a map and streams it to a MovingAI map or tile file.
+     *
+     * @param args command line args.
+     */
+    public static void main(String[] args) throws IOException {
+        MapGenerator generator = null;
+        String output = null;
+        int tileSize = 256;
+        try {
+            long seed = 0;
+            double density = -1;
+            for (int i = 4; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--density":
+                        density = Double.parseDouble(args[++i]);
+                        break;
+                    case "--tile-size":
+                        tileSize = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        usage();
+                }
+            }
+            Type type = Type.valueOf(args[0].toUpperCase());
+            int width = Integer.parseInt(args[1]), height = Integer.parseInt(args[2]);
+            generator = new MapGenerator(type, width, height, seed, density < 0 ? type.defaultDensity : density);
+            output = args[3];
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException exception) {
+            usage();
+        }
+        long start = System.nanoTime();
+        if (output.endsWith(".tiles")) {
+            TiledGrid.write(generator, output, tileSize);
+        } else {
+            MapFile.writeMovingAI(generator, output);
+        }
+        System.err.printf("wrote %s in %.1f ms%n", output, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Consecutive rows of generated tiles.
+     */
+    private static class Band {
+        final int firstTileRow;
+        final long[][] tiles;
+
+        Band(int firstTileRow, long[][] tiles) {
+            this.firstTileRow = firstTileRow;
+            this.tiles = tiles;
+        }
+    }
+}
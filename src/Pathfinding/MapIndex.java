@@ -0,0 +1,131 @@
+package Pathfinding;
+
+import java.awt.*;
+
+/**
+ * Metadata about the cells of a map, kept up to date one cell at a time as the map is edited, so nothing has to scan
+ * the whole map to find out what is on it.
+ * <p>
+ * The index holds the start and end positions and a wall bitmap per row, from which the integer map is rebuilt a
+ * word at a time.
+ * <p>
+ * Cells use the codes of the integer map: 0 = unoccupied, 1 = wall, 2 = start position, 3 = end position.
+ */
+final class MapIndex {
+    static final int EMPTY = 0;
+    static final int WALL = 1;
+    static final int START = 2;
+    static final int END = 3;
+
+    private final int width, height;
+    private final long[][] rows; // Bit x of rows[y] is set for a wall
+    private int start = -1, end = -1; // Packed cell indices, -1 if not placed
+
+    /**
+     * Creates the index of an empty map.
+     *
+     * @param width  width of the map.
+     * @param height height of the map.
+     */
+    MapIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.rows = new long[height][(width + 63) >> 6];
+    }
+
+    /**
+     * Creates the index of an integer map.
+     *
+     * @param map integer map.
+     * @return index of the map.
+     */
+    static MapIndex of(int[][] map) {
+        MapIndex index = new MapIndex(map.length, map[0].length);
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                if (map[i][j] != EMPTY) {
+                    index.set(i, j, map[i][j]);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Records the new contents of a cell. A cell that held the start or end and is set to anything else removes it,
+     * setting a second start or end moves it.
+     *
+     * @param x    x coordinate.
+     * @param y    y coordinate.
+     * @param code new contents of the cell, any code other than WALL, START and END counts as EMPTY.
+     */
+    void set(int x, int y, int code) {
+        int cell = Path.index(x, y, height);
+        boolean wall = code == WALL;
+        if (wall != isWall(x, y)) {
+            rows[y][x >> 6] ^= 1L << x;
+        }
+        if (code == START) {
+            start = cell;
+        } else if (start == cell) {
+            start = -1;
+        }
+        if (code == END) {
+            end = cell;
+        } else if (end == cell) {
+            end = -1;
+        }
+    }
+
+    /**
+     * Checks if a cell is a wall.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return true if the cell is a wall.
+     */
+    boolean isWall(int x, int y) {
+        return (rows[y][x >> 6] & (1L << x)) != 0;
+    }
+
+    /**
+     * Returns the start position.
+     *
+     * @return position of the start, or null if none is placed.
+     */
+    Point getStart() {
+        return start < 0 ? null : new Point(start / height, start % height);
+    }
+
+    /**
+     * Returns the end position.
+     *
+     * @return position of the end, or null if none is placed.
+     */
+    Point getEnd() {
+        return end < 0 ? null : new Point(end / height, end % height);
+    }
+
+    /**
+     * Builds the integer map, reading the walls a word of a row at a time.
+     *
+     * @return integer map of the indexed map.
+     */
+    int[][] toIntMap() {
+        int[][] map = new int[width][height];
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < rows[y].length; w++) {
+                for (long bits = rows[y][w]; bits != 0; bits &= bits - 1) {
+                    map[(w << 6) + Long.numberOfTrailingZeros(bits)][y] = WALL;
+                }
+            }
+        }
+        if (start >= 0) {
+            map[start / height][start % height] = START;
+        }
+        if (end >= 0) {
+            map[end / height][end % height] = END;
+        }
+        return map;
+    }
+}
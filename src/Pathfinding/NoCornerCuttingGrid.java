@@ -0,0 +1,91 @@
+package Pathfinding;
+
+/**
+ * View of a grid that forbids cutting corners: a diagonal move is only valid if both cells beside it are open, the
+ * rule MovingAI benchmark scenarios are solved with. The wrapped grid blocks a diagonal only if both cells beside it
+ * are walls.
+ */
+final class NoCornerCuttingGrid implements Grid {
+    private final Grid walls;
+
+    /**
+     * Creates the view.
+     *
+     * @param walls grid whose walls are used.
+     */
+    NoCornerCuttingGrid(Grid walls) {
+        this.walls = walls;
+    }
+
+    @Override
+    public int getWidth() {
+        return walls.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return walls.getHeight();
+    }
+
+    @Override
+    public boolean isWall(int x, int y) {
+        return walls.isWall(x, y);
+    }
+
+    /**
+     * Calculates the moves that can be made out of a cell from the moves of the wrapped grid, keeping a diagonal only
+     * if the orthogonal moves on both sides of it are valid.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return mask with bit d set if the move (Path.DX[d], Path.DY[d]) is valid.
+     */
+    @Override
+    public int neighbors(int x, int y) {
+        int mask = walls.neighbors(x, y);
+        int orthogonal = mask & 0x55;
+        // Bit d is set if orthogonal moves d and d + 2 are both valid, which allows diagonal d + 1
+        int pairs = orthogonal & ((orthogonal >>> 2) | (orthogonal << 6));
+        return orthogonal | (mask & (pairs << 1) & 0xAA);
+    }
+
+    /**
+     * Checks if a straight line can be travelled between two cells, tracing the line with Bresenham's algorithm and
+     * applying the same corner rule as neighbors.
+     *
+     * @param x1 originating x coordinate.
+     * @param y1 originating y coordinate.
+     * @param x2 ending x coordinate.
+     * @param y2 ending y coordinate.
+     * @return true if no cell along the line is blocked.
+     */
+    @Override
+    public boolean lineOfSight(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x2 - x1), dy = Math.abs(y2 - y1);
+        int sx = Integer.signum(x2 - x1), sy = Integer.signum(y2 - y1);
+        int x = x1, y = y1;
+        int error = dx - dy;
+        while (x != x2 || y != y2) {
+            int e2 = 2 * error;
+            int nx = x, ny = y;
+            if (e2 > -dy) {
+                error -= dy;
+                nx += sx;
+            }
+            if (e2 < dx) {
+                error += dx;
+                ny += sy;
+            }
+            // A diagonal step is inaccessible if either cell beside it is a wall
+            if (nx != x && ny != y && (walls.isWall(nx, y) || walls.isWall(x, ny))) {
+                return false;
+            }
+            x = nx;
+            y = ny;
+            if (walls.isWall(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
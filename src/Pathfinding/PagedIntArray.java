@@ -0,0 +1,64 @@
+package Pathfinding;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An int per cell of a map, stored in pages of 4096 cells that are allocated the first time a cell in them is written.
+ * <p>
+ * A search that only reaches part of the map only pays for the pages it reached, instead of an array the size of the
+ * whole map on every query. Cells of pages that have not been allocated read as the default value. Pages are
+ * installed with a compare and set, so threads writing different cells never lose each other's pages, the cells
+ * themselves have the same visibility rules as an int[].
+ */
+final class PagedIntArray {
+    private static final int PAGE_SHIFT = SearchState.PAGE_SHIFT;
+    private static final int PAGE_MASK = SearchState.PAGE_MASK;
+
+    private final int defaultValue;
+    private final AtomicReferenceArray<int[]> pages;
+
+    /**
+     * Creates an array with every cell set to a default value.
+     *
+     * @param length       number of cells.
+     * @param defaultValue value of every cell until it is written.
+     */
+    PagedIntArray(int length, int defaultValue) {
+        this.defaultValue = defaultValue;
+        this.pages = new AtomicReferenceArray<>((int) (((long) length + PAGE_MASK) >>> PAGE_SHIFT));
+    }
+
+    /**
+     * Returns the value of a cell.
+     *
+     * @param cell index of the cell.
+     * @return value of the cell.
+     */
+    int get(int cell) {
+        int[] page = this.pages.get(cell >>> PAGE_SHIFT);
+        return page == null ? this.defaultValue : page[cell & PAGE_MASK];
+    }
+
+    /**
+     * Sets the value of a cell.
+     *
+     * @param cell  index of the cell.
+     * @param value new value of the cell.
+     */
+    void set(int cell, int value) {
+        int index = cell >>> PAGE_SHIFT;
+        int[] page = this.pages.get(index);
+        if (page == null) {
+            page = new int[PAGE_MASK + 1];
+            if (this.defaultValue != 0) {
+                Arrays.fill(page, this.defaultValue);
+            }
+            // Another thread may have installed the page first, in which case its page is used
+            if (!this.pages.compareAndSet(index, null, page)) {
+                page = this.pages.get(index);
+            }
+        }
+        page[cell & PAGE_MASK] = value;
+    }
+}
@@ -0,0 +1,304 @@
+package Pathfinding;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hash distributed A* (HDA*), a single query split across several threads while still returning an optimal path.
+ * <p>
+ * Every cell is owned by exactly one worker, chosen by hashing the 8 x 8 block the cell is in so neighboring cells
+ * mostly share an owner. A worker keeps its own open list and only it reads or writes the costs of the cells it owns,
+ * so no locks are needed. When a worker generates a cell owned by another worker it sends it to that worker's inbox.
+ * <p>
+ * Workers keep expanding until no work is left anywhere. The cheapest path to the end found so far (the incumbent) is
+ * shared, and any node whose f cost is not below it is dropped, so the search stops once every node that could still
+ * lead to a cheaper path has been expanded. A counter of queued nodes and unread messages tells the workers when that
+ * has happened.
+ */
+public class ParallelAStar extends Algorithm {
+    private static final int BLOCK_SHIFT = 3; // Cells are assigned to workers in blocks of 8 x 8
+    private static final int NO_PARENT = -1;
+
+    private final int threads;
+    // Paged, so only the cells the workers reach take memory
+    private final PagedIntArray gCost = new PagedIntArray(this.size.x * this.size.y, Integer.MAX_VALUE);
+    private final PagedIntArray parent = new PagedIntArray(this.size.x * this.size.y, 0);
+    private final int goal = Path.index(this.end.x, this.end.y, this.size.y);
+    private final Worker[] workers;
+    private final AtomicInteger work = new AtomicInteger(); // Queued nodes plus messages not yet read
+    private final AtomicLong incumbent = new AtomicLong(Integer.MAX_VALUE); // Cost of the best path to the end so far
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final Color openColor = Color.green;
+    private final Color closedColor = Color.red;
+
+    /**
+     * Constructor for algorithm, using one worker per processor.
+     *
+     * @param panel              panel to be used by algorithm
+     * @param updateWhileRunning if the panel will be updated while running
+     */
+    public ParallelAStar(mapPanel panel, boolean updateWhileRunning) {
+        super(panel, updateWhileRunning);
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.workers = new Worker[this.threads];
+        this.setup();
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel.
+     *
+     * @param walls   walls of the map, any grid backend.
+     * @param start   starting position.
+     * @param end     ending position.
+     * @param threads number of worker threads.
+     */
+    public ParallelAStar(Grid walls, Point start, Point end, int threads) {
+        super(walls, start, end);
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1.");
+        }
+        this.threads = threads;
+        this.workers = new Worker[this.threads];
+        this.setup();
+    }
+
+    /**
+     * Creates the workers and hands the starting node to its owner.
+     */
+    private void setup() {
+        for (int i = 0; i < this.threads; i++) {
+            this.workers[i] = new Worker(i);
+        }
+        this.send(Path.index(this.start.x, this.start.y, this.size.y), 0, NO_PARENT);
+    }
+
+    /**
+     * Returns the worker that owns a cell.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return index of the owning worker.
+     */
+    private int owner(int x, int y) {
+        int block = (x >> BLOCK_SHIFT) * 0x9E3779B1 + (y >> BLOCK_SHIFT) * 0x85EBCA77;
+        return (int) (((block ^ (block >>> 15)) & 0xFFFFFFFFL) % this.threads);
+    }
+
+    /**
+     * Sends a generated cell to the inbox of its owner, counting it as outstanding work.
+     *
+     * @param cell   packed cell index.
+     * @param g      cost from the start.
+     * @param from   packed cell index of the parent, or NO_PARENT.
+     */
+    private void send(int cell, int g, int from) {
+        this.work.incrementAndGet();
+        this.workers[this.owner(cell / this.size.y, cell % this.size.y)].inbox.add(new int[]{cell, g, from});
+    }
+
+    /**
+     * Generate the path with all workers and print it to the panel.
+     */
+    @Override
+    public void generatePath() throws IllegalArgumentException {
+        Thread[] running = new Thread[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            running[i] = new Thread(this.workers[i], "Parallel A-Star " + i);
+            running[i].start();
+        }
+        try {
+            for (Thread t : running) {
+                t.join();
+            }
+        } catch (InterruptedException e) {
+            for (Thread t : running) {
+                t.interrupt();
+            }
+            this.stopPanel();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (this.failure.get() != null) {
+            throw this.failure.get();
+        }
+        for (Worker w : this.workers) {
+            this.expansions += w.expansions;
+        }
+        if (this.gCost.get(this.goal) == Integer.MAX_VALUE) {
+            this.stopPanel();
+            this.setPosition(this.start, mapPanel.START_COLOR);
+            this.setPosition(this.end, mapPanel.END_COLOR);
+            this.repaintPanel();
+            throw new IllegalArgumentException("course cannot be solved.");
+        }
+        this.paintPath();
+    }
+
+    /**
+     * Method to store the path generated as packed cell indices and paint it to the panel.
+     */
+    private void paintPath() {
+        this.stopPanel();
+        int length = 0;
+        for (int c = goal; c != NO_PARENT; c = this.parent.get(c)) {
+            length++;
+        }
+        int[] cells = new int[length];
+        for (int c = goal; c != NO_PARENT; c = this.parent.get(c)) {
+            cells[--length] = c;
+        }
+        this.path = new Path(cells, this.size.y);
+        for (int i = 1; i < this.path.length(); i++) {
+            this.setPosition(this.path.get(i), Color.blue);
+        }
+        this.setPosition(this.start, mapPanel.START_COLOR);
+        this.setPosition(this.end, mapPanel.END_COLOR);
+        this.repaintPanel();
+    }
+
+    /**
+     * One search thread with its own open list and inbox. It is the only thread that touches the costs and parents of
+     * the cells it owns.
+     */
+    private class Worker implements Runnable {
+        private final int id;
+        private final ConcurrentLinkedQueue<int[]> inbox = new ConcurrentLinkedQueue<>();
+        private long[] open = new long[64]; // Binary heap of f cost in the high half and cell in the low half
+        private int openSize = 0;
+        private int expansions = 0;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            try {
+                search();
+            } catch (RuntimeException exception) {
+                failure.compareAndSet(null, exception);
+                work.set(0); // Stop the other workers
+            }
+        }
+
+        /**
+         * Reads the inbox and expands the best local node until no work is left in any worker.
+         */
+        private void search() {
+            while (work.get() > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                for (int[] message = inbox.poll(); message != null; message = inbox.poll()) {
+                    receive(message[0], message[1], message[2]);
+                }
+                if (openSize == 0) {
+                    Thread.yield();
+                    continue;
+                }
+                long entry = poll();
+                int cell = (int) entry, f = (int) (entry >>> 32);
+                int x = cell / size.y, y = cell % size.y;
+                // Skip entries superseded by a cheaper cost and nodes that can not beat the incumbent
+                if (f - heuristic(x, y) == gCost.get(cell) && f < incumbent.get() && cell != goal) {
+                    expand(cell, x, y);
+                }
+                work.decrementAndGet();
+            }
+        }
+
+        /**
+         * Generates the neighbors of a node, handling the ones this worker owns directly.
+         */
+        private void expand(int cell, int x, int y) {
+            expansions++;
+            if (panel != null) {
+                setPosition(new Point(x, y), closedColor);
+            }
+            int g = gCost.get(cell);
+            for (int m = walls.neighbors(x, y); m != 0; m &= m - 1) {
+                int d = Integer.numberOfTrailingZeros(m);
+                int nx = x + Path.DX[d], ny = y + Path.DY[d];
+                int next = Path.index(nx, ny, size.y);
+                int newCost = g + ((d & 1) == 0 ? 10 : 14);
+                if (owner(nx, ny) == id) {
+                    work.incrementAndGet();
+                    receive(next, newCost, cell);
+                } else {
+                    send(next, newCost, cell);
+                }
+            }
+            if (updateWhileRunning) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Handles a generated node owned by this worker, queueing it if it improves the cell. Consumes one unit of
+         * work unless the node is queued.
+         */
+        private void receive(int cell, int g, int from) {
+            if (g >= gCost.get(cell)) {
+                work.decrementAndGet();
+                return;
+            }
+            gCost.set(cell, g);
+            parent.set(cell, from);
+            int x = cell / size.y, y = cell % size.y;
+            if (cell == goal) {
+                incumbent.accumulateAndGet(g, Math::min);
+            }
+            if (panel != null) {
+                setPosition(new Point(x, y), openColor);
+            }
+            add((long) (g + heuristic(x, y)) << 32 | cell);
+        }
+
+        /**
+         * Octile distance to the end, the same heuristic as AStar.
+         */
+        private int heuristic(int x, int y) {
+            int deltaX = Math.abs(end.x - x), deltaY = Math.abs(end.y - y);
+            return deltaX > deltaY ? 14 * deltaY + 10 * (deltaX - deltaY) : 14 * deltaX + 10 * (deltaY - deltaX);
+        }
+
+        private void add(long value) {
+            if (openSize == open.length) {
+                open = Arrays.copyOf(open, openSize * 2);
+            }
+            int i = openSize++;
+            while (i > 0 && open[(i - 1) >>> 1] > value) {
+                open[i] = open[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            open[i] = value;
+        }
+
+        private long poll() {
+            long top = open[0];
+            long last = open[--openSize];
+            int i = 0;
+            while (2 * i + 1 < openSize) {
+                int child = 2 * i + 1;
+                if (child + 1 < openSize && open[child + 1] < open[child]) {
+                    child++;
+                }
+                if (open[child] >= last) {
+                    break;
+                }
+                open[i] = open[child];
+                i = child;
+            }
+            open[i] = last;
+            return top;
+        }
+    }
+}
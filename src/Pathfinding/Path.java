@@ -0,0 +1,171 @@
+package Pathfinding;
+
+import java.awt.*;
+
+/**
+ * Compact, immutable representation of a path through a grid.
+ * <p>
+ * Cells are stored as packed indices (x * height + y) so a path costs four bytes per cell instead of a Point object.
+ * A path is either step by step, each cell adjacent to the previous one, or made of waypoints joined by straight
+ * lines, as Theta* produces, which expand turns back into steps.
+ */
+public final class Path {
+    /**
+     * Direction codes, index i is the move (DX[i], DY[i]). Orthogonal moves are even, diagonal moves are odd.
+     */
+    static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final int[] cells;
+    private final int height;
+
+    /**
+     * Creates a path from packed cell indices.
+     *
+     * @param cells  packed cell indices from start to end.
+     * @param height height of the map the path was generated on, used to unpack indices.
+     */
+    Path(int[] cells, int height) {
+        this.cells = cells;
+        this.height = height;
+    }
+
+    /**
+     * Returns the number of cells of a map, checking that every cell has a packed index. Indices are ints, so a map
+     * can hold at most Integer.MAX_VALUE cells, 46340 x 46340 for a square one.
+     *
+     * @param width  width of the map.
+     * @param height height of the map.
+     * @return number of cells.
+     * @throws IllegalArgumentException Thrown if the map has more cells than an int can index.
+     */
+    static int cells(int width, int height) {
+        long cells = (long) width * height;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("map of " + width + " x " + height + " has " + cells
+                    + " cells, more than the " + Integer.MAX_VALUE + " that can be indexed.");
+        }
+        return (int) cells;
+    }
+
+    /**
+     * Packs the given point into a cell index.
+     *
+     * @param x      x coordinate.
+     * @param y      y coordinate.
+     * @param height height of the map.
+     * @return packed cell index.
+     */
+    static int index(int x, int y, int height) {
+        return x * height + y;
+    }
+
+    /**
+     * Returns the packed cell indices of the path from start to end.
+     *
+     * @return copy of the packed cell indices.
+     */
+    public int[] getCells() {
+        return cells.clone();
+    }
+
+    /**
+     * Returns the number of cells (or waypoints) in the path.
+     *
+     * @return length of the path.
+     */
+    public int length() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the cell at the given position along the path.
+     *
+     * @param i position along the path.
+     * @return the cell as a Point.
+     */
+    public Point get(int i) {
+        return new Point(cells[i] / height, cells[i] % height);
+    }
+
+    /**
+     * Calculates the cost of the path using the same metric as the algorithms, so a step path and a path of
+     * waypoints can be compared.
+     *
+     * @return cost of travelling along the path.
+     */
+    public int getCost() {
+        int cost = 0;
+        for (int i = 1; i < cells.length; i++) {
+            cost += Algorithm.distanceBetween(get(i - 1), get(i));
+        }
+        return cost;
+    }
+
+    /**
+     * Calculates the straight line cost of the path, for paths made of waypoints.
+     *
+     * @return cost of travelling along the path in straight lines between cells.
+     */
+    public double getEuclideanCost() {
+        double cost = 0;
+        for (int i = 1; i < cells.length; i++) {
+            cost += Algorithm.euclideanBetween(get(i - 1), get(i));
+        }
+        return cost;
+    }
+
+    /**
+     * Counts the diagonal moves of the path, moves between cells that differ in both coordinates.
+     *
+     * @return number of diagonal moves.
+     */
+    public int getDiagonalMoves() {
+        int count = 0;
+        for (int i = 1; i < cells.length; i++) {
+            if (cells[i] / height != cells[i - 1] / height && cells[i] % height != cells[i - 1] % height) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Expands a path of waypoints back into adjacent cells by tracing the same lines used for line of sight.
+     *
+     * @return step-by-step path.
+     */
+    public Path expand() {
+        if (cells.length == 0) {
+            return this;
+        }
+        int length = 1;
+        for (int i = 1; i < cells.length; i++) {
+            Point p1 = get(i - 1), p2 = get(i);
+            length += Math.max(Math.abs(p2.x - p1.x), Math.abs(p2.y - p1.y));
+        }
+        int[] steps = new int[length];
+        int count = 0;
+        steps[count++] = cells[0];
+        for (int i = 1; i < cells.length; i++) {
+            Point p1 = get(i - 1), p2 = get(i);
+            int dx = Math.abs(p2.x - p1.x), dy = Math.abs(p2.y - p1.y);
+            int sx = Integer.signum(p2.x - p1.x), sy = Integer.signum(p2.y - p1.y);
+            int x = p1.x, y = p1.y;
+            int error = dx - dy;
+            while (x != p2.x || y != p2.y) {
+                int e2 = 2 * error;
+                if (e2 > -dy) {
+                    error -= dy;
+                    x += sx;
+                }
+                if (e2 < dx) {
+                    error += dx;
+                    y += sy;
+                }
+                steps[count++] = index(x, y, height);
+            }
+        }
+        return new Path(steps, height);
+    }
+}
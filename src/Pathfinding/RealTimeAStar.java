@@ -0,0 +1,291 @@
+package Pathfinding;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Real-Time Adaptive A* (RTAA*), a real-time search that publishes the path a piece at a time instead of all at once.
+ * <p>
+ * Each step runs A* from the agent's cell until it reaches the end or has spent its lookahead, counted in expansions
+ * and in time, then commits to the path to the best node on the frontier and publishes it as a segment. The h costs of
+ * every node the step expanded are raised to f(best) - g, so the heuristic stays consistent and admissible and the
+ * agent can not circle forever. The first segment is ready after one bounded lookahead however far away the end is,
+ * at the price of a path that is usually longer than the optimal one.
+ * <p>
+ * Segments are published to subscribers as they are found, each one starting at the cell the previous one ended on.
+ * Subscribe before calling generatePath, the stream completes once the end is reached and fails with an
+ * IllegalArgumentException if it can not be. Learning alone would only notice an unreachable end after raising h
+ * across the whole region around the start, so a breadth first search from both ends checks that they are connected,
+ * visiting as many cells alongside each lookahead as the lookahead expands. It grows the smaller side first, so a
+ * walled off start or end is found after visiting its own region, and the first segment is not delayed.
+ */
+public class RealTimeAStar extends Algorithm implements Flow.Publisher<Path> {
+    static final int DEFAULT_LOOKAHEAD = 256;
+    static final long DEFAULT_BUDGET_NANOS = 1_000_000;
+
+    private final int lookahead;
+    private final long budgetNanos;
+    private final SubmissionPublisher<Path> publisher = new SubmissionPublisher<>();
+    // Paged, so only the cells the lookaheads reach take memory
+    private final PagedIntArray hCost = new PagedIntArray(this.size.x * this.size.y, -1); // Learned h, -1 until raised
+    private final PagedIntArray gCost = new PagedIntArray(this.size.x * this.size.y, 0);
+    private final PagedIntArray parent = new PagedIntArray(this.size.x * this.size.y, 0);
+    private final PagedIntArray seen = new PagedIntArray(this.size.x * this.size.y, 0); // Step that last reached a cell
+    private final PagedIntArray closed = new PagedIntArray(this.size.x * this.size.y, 0); // Step that last expanded it
+    private long firstSegmentNanos = -1;
+    private final Color closedColor = Color.red;
+
+    /**
+     * Constructor for algorithm, using the default lookahead and time budget.
+     *
+     * @param panel              panel to be used by algorithm
+     * @param updateWhileRunning if the panel will be updated while running
+     */
+    public RealTimeAStar(mapPanel panel, boolean updateWhileRunning) {
+        super(panel, updateWhileRunning);
+        this.lookahead = DEFAULT_LOOKAHEAD;
+        this.budgetNanos = DEFAULT_BUDGET_NANOS;
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel.
+     *
+     * @param walls       walls of the map, any grid backend.
+     * @param start       starting position.
+     * @param end         ending position.
+     * @param lookahead   most nodes expanded before committing to a segment.
+     * @param budgetNanos time after which a lookahead stops early, in nanoseconds.
+     */
+    public RealTimeAStar(Grid walls, Point start, Point end, int lookahead, long budgetNanos) {
+        super(walls, start, end);
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be at least 1.");
+        }
+        this.lookahead = lookahead;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Subscribes to the segments of the path.
+     *
+     * @param subscriber subscriber receiving the segments in order.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Path> subscriber) {
+        this.publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Returns the time from the call to generatePath until the first segment was published.
+     *
+     * @return time to the first segment in nanoseconds, or -1 if none has been published.
+     */
+    public long getFirstSegmentNanos() {
+        return this.firstSegmentNanos;
+    }
+
+    /**
+     * Returns the h cost of a cell, the octile distance to the end until learning raises it.
+     *
+     * @param cell packed cell index.
+     * @return h cost of the cell.
+     */
+    private int h(int cell) {
+        if (this.hCost.get(cell) >= 0) {
+            return this.hCost.get(cell);
+        }
+        int deltaX = Math.abs(this.end.x - cell / this.size.y), deltaY = Math.abs(this.end.y - cell % this.size.y);
+        return deltaX > deltaY ? 14 * deltaY + 10 * (deltaX - deltaY) : 14 * deltaX + 10 * (deltaY - deltaX);
+    }
+
+    /**
+     * Moves from the start to the end one lookahead at a time, publishing each committed segment.
+     */
+    @Override
+    public void generatePath() throws IllegalArgumentException {
+        long begin = System.nanoTime();
+        int goal = Path.index(this.end.x, this.end.y, this.size.y);
+        int current = Path.index(this.start.x, this.start.y, this.size.y);
+        int[] travelled = new int[]{current};
+        int length = 1, step = 0;
+        int[] expanded = new int[this.lookahead];
+        try {
+            Connectivity connectivity = new Connectivity(current, goal);
+            if (current == goal) {
+                this.publish(travelled, 0, 1, begin);
+            }
+            while (current != goal) {
+                if (connectivity.check(this.lookahead) == Connectivity.DISCONNECTED) {
+                    throw new IllegalArgumentException("course cannot be solved.");
+                }
+                step++;
+                BucketQueue open = new BucketQueue(28);
+                this.gCost.set(current, 0);
+                this.parent.set(current, -1);
+                this.seen.set(current, step);
+                open.add(this.h(current), current);
+                long deadline = System.nanoTime() + this.budgetNanos;
+                int count = 0, best = -1, bestF = 0;
+                while (!open.isEmpty()) {
+                    int cell = open.poll();
+                    if (this.closed.get(cell) == step || open.lastKey() != this.gCost.get(cell) + this.h(cell)) {
+                        continue; // Stale entry, the node was queued again with a lower cost
+                    }
+                    // Stop at the end, or at the best frontier node once the lookahead is spent
+                    if (cell == goal || count == this.lookahead
+                            || (count & 15) == 0 && count > 0 && System.nanoTime() > deadline) {
+                        best = cell;
+                        bestF = open.lastKey();
+                        break;
+                    }
+                    this.closed.set(cell, step);
+                    expanded[count++] = cell;
+                    this.expansions++;
+                    int x = cell / this.size.y, y = cell % this.size.y;
+                    if (this.panel != null) {
+                        this.setPosition(new Point(x, y), closedColor);
+                    }
+                    for (int m = this.walls.neighbors(x, y); m != 0; m &= m - 1) {
+                        int d = Integer.numberOfTrailingZeros(m);
+                        int next = Path.index(x + Path.DX[d], y + Path.DY[d], this.size.y);
+                        if (this.seen.get(next) != step) {
+                            this.seen.set(next, step);
+                            this.gCost.set(next, Integer.MAX_VALUE);
+                        }
+                        int newCost = this.gCost.get(cell) + ((d & 1) == 0 ? 10 : 14);
+                        if (this.closed.get(next) != step && newCost < this.gCost.get(next)) {
+                            this.gCost.set(next, newCost);
+                            this.parent.set(next, cell);
+                            open.add(newCost + this.h(next), next);
+                        }
+                    }
+                    if (this.updateWhileRunning) {
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            this.stopPanel();
+                            this.publisher.close();
+                            return;
+                        }
+                    }
+                }
+                if (best < 0) {
+                    // Everything reachable was expanded without finding the end
+                    throw new IllegalArgumentException("course cannot be solved.");
+                }
+                // Learn: every expanded node is at least f(best) - g away from the end
+                for (int i = 0; i < count; i++) {
+                    this.hCost.set(expanded[i], bestF - this.gCost.get(expanded[i]));
+                }
+                // Commit to the path from the current cell to the best node
+                int segment = 0;
+                for (int c = best; c != -1; c = this.parent.get(c)) {
+                    segment++;
+                }
+                if (length + segment - 1 > travelled.length) {
+                    travelled = Arrays.copyOf(travelled, Math.max(travelled.length * 2, length + segment - 1));
+                }
+                int at = length + segment - 2;
+                for (int c = best; c != current; c = this.parent.get(c)) {
+                    travelled[at--] = c;
+                }
+                this.publish(travelled, length - 1, segment, begin);
+                length += segment - 1;
+                current = best;
+            }
+        } catch (IllegalArgumentException exception) {
+            this.publisher.closeExceptionally(exception);
+            this.stopPanel();
+            this.setPosition(this.start, mapPanel.START_COLOR);
+            this.setPosition(this.end, mapPanel.END_COLOR);
+            this.repaintPanel();
+            throw exception;
+        }
+        this.path = new Path(Arrays.copyOf(travelled, length), this.size.y);
+        this.publisher.close();
+        this.stopPanel();
+        this.setPosition(this.start, mapPanel.START_COLOR);
+        this.setPosition(this.end, mapPanel.END_COLOR);
+        this.repaintPanel();
+    }
+
+    /**
+     * Breadth first search from two cells at once that finds out if they are connected a few cells at a time. Moves
+     * are symmetric, so the two sides meet if and only if the cells are connected, and they can not be once either
+     * side has no cells left to visit.
+     */
+    private final class Connectivity {
+        static final int UNKNOWN = 0, CONNECTED = 1, DISCONNECTED = 2;
+
+        private final PagedIntArray side = new PagedIntArray(size.x * size.y, 0); // 1 or 2 once a side reached it
+        private final int[][] queue = {new int[64], new int[64]};
+        private final int[] head = {0, 0}, tail = {1, 1};
+        private int state = UNKNOWN;
+
+        Connectivity(int from, int to) {
+            this.queue[0][0] = from;
+            this.queue[1][0] = to;
+            this.side.set(from, 1);
+            this.side.set(to, 2);
+            if (from == to) {
+                this.state = CONNECTED;
+            }
+        }
+
+        /**
+         * Visits up to a number of cells, growing the side with the smaller queue.
+         *
+         * @param budget most cells to visit.
+         * @return UNKNOWN, CONNECTED or DISCONNECTED.
+         */
+        int check(int budget) {
+            for (; state == UNKNOWN && budget > 0; budget--) {
+                if (head[0] == tail[0] || head[1] == tail[1]) {
+                    state = DISCONNECTED;
+                    break;
+                }
+                int s = tail[0] - head[0] <= tail[1] - head[1] ? 0 : 1;
+                int cell = queue[s][head[s]++];
+                int x = cell / size.y, y = cell % size.y;
+                for (int m = walls.neighbors(x, y); m != 0; m &= m - 1) {
+                    int d = Integer.numberOfTrailingZeros(m);
+                    int next = Path.index(x + Path.DX[d], y + Path.DY[d], size.y);
+                    int mark = side.get(next);
+                    if (mark == 0) {
+                        side.set(next, s + 1);
+                        if (tail[s] == queue[s].length) {
+                            // A cell is queued once, so the queue never needs to outgrow the map
+                            queue[s] = Arrays.copyOf(queue[s], (int) Math.min(2L * tail[s], size.x * size.y));
+                        }
+                        queue[s][tail[s]++] = next;
+                    } else if (mark != s + 1) {
+                        state = CONNECTED;
+                        break;
+                    }
+                }
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Publishes a committed segment and paints it to the panel.
+     *
+     * @param cells  cells travelled so far.
+     * @param from   index of the first cell of the segment.
+     * @param length number of cells in the segment.
+     * @param begin  time generatePath started.
+     */
+    private void publish(int[] cells, int from, int length, long begin) {
+        Path segment = new Path(Arrays.copyOfRange(cells, from, from + length), this.size.y);
+        if (this.firstSegmentNanos < 0) {
+            this.firstSegmentNanos = System.nanoTime() - begin;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            this.setPosition(segment.get(i), Color.blue);
+        }
+        this.publisher.submit(segment);
+    }
+}
@@ -0,0 +1,126 @@
+package Pathfinding;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder events emitted by the searches, the map files and the map panel.
+ * <p>
+ * Events are only written while a recording is running, for example one started with
+ * -XX:StartFlightRecording:filename=run.jfr or by SearchProfiler, and cost a single check otherwise. Heap operations
+ * happen millions of times a query, so only one in every heapSampleInterval of them is recorded.
+ */
+final class SearchEvents {
+    /**
+     * One heap operation in this many is recorded, set with the pathfinding.heapSampleInterval property. Each search
+     * reads it when it starts.
+     */
+    static volatile int heapSampleInterval = Math.max(1, Integer.getInteger("pathfinding.heapSampleInterval", 1024));
+
+    private SearchEvents() {
+    }
+
+    /**
+     * A single query, from the call to generatePath until it returns or fails.
+     */
+    @Name("Pathfinding.Query")
+    @Label("Query")
+    @Category("Pathfinding")
+    @Description("A path search from start to end")
+    static final class Query extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Start X")
+        int startX;
+        @Label("Start Y")
+        int startY;
+        @Label("End X")
+        int endX;
+        @Label("End Y")
+        int endY;
+        @Label("Expansions")
+        int expansions;
+        @Label("Solved")
+        boolean solved;
+        @Label("Cost")
+        double cost;
+    }
+
+    /**
+     * A sampled add to or poll from an open set.
+     */
+    @Name("Pathfinding.HeapOperation")
+    @Label("Heap Operation")
+    @Category("Pathfinding")
+    @Description("A sampled operation on the open set of a search")
+    static final class HeapOperation extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Expansions")
+        int expansions;
+        @Label("Operation")
+        String operation;
+        @Label("Key")
+        int key;
+        @Label("Queue Size")
+        int queueSize;
+    }
+
+    /**
+     * Reading or writing a map file.
+     */
+    @Name("Pathfinding.MapIO")
+    @Label("Map IO")
+    @Category("Pathfinding")
+    @Description("A map file read or written")
+    static final class MapIO extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("File")
+        String file;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+    }
+
+    /**
+     * One repaint of the map panel while an algorithm is running.
+     */
+    @Name("Pathfinding.RenderFrame")
+    @Label("Render Frame")
+    @Category("Pathfinding")
+    @Description("A repaint of the whole map panel")
+    static final class RenderFrame extends Event {
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+    }
+
+    /**
+     * Starts timing a map file operation, the caller fills in the size and commits it.
+     *
+     * @param operation "read" or "write".
+     * @param file      path of the map file.
+     * @return the started event.
+     */
+    static MapIO mapIO(String operation, String file) {
+        MapIO event = new MapIO();
+        event.operation = operation;
+        event.file = file;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,246 @@
+package Pathfinding;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Records the searches of this process with the flight recorder and summarizes the recording, so slow queries can be
+ * explained without attaching a profiler.
+ * <p>
+ * The recording holds the events of SearchEvents and the JVM's own execution samples. The summary gives the latency
+ * distribution of every algorithm, the slowest queries, the methods most often on the stack overall and during the
+ * slowest one percent of queries, and the cost of heap operations, map files and render frames. Any recording that
+ * holds these events can be summarized, including one started with -XX:StartFlightRecording.
+ */
+final class SearchProfiler implements AutoCloseable {
+    static final Duration DEFAULT_SAMPLE_PERIOD = Duration.ofMillis(10);
+    private static final int TOP = 10;
+
+    private final Recording recording = new Recording();
+    private final java.nio.file.Path file;
+
+    /**
+     * Starts recording.
+     *
+     * @param fileName     file the recording is written to when it is closed.
+     * @param samplePeriod time between execution samples of each thread.
+     * @throws IOException Thrown if the file can not be written to.
+     */
+    SearchProfiler(String fileName, Duration samplePeriod) throws IOException {
+        this.file = Paths.get(fileName);
+        this.recording.setName("Pathfinding");
+        this.recording.enable(SearchEvents.Query.class);
+        this.recording.enable(SearchEvents.HeapOperation.class);
+        this.recording.enable(SearchEvents.MapIO.class);
+        this.recording.enable(SearchEvents.RenderFrame.class);
+        this.recording.enable("jdk.ExecutionSample").withPeriod(samplePeriod);
+        this.recording.setDestination(this.file);
+        this.recording.start();
+    }
+
+    /**
+     * Stops recording, writes the recording to its file and prints its summary.
+     *
+     * @param out stream the summary is printed to.
+     * @throws IOException Thrown if the recording can not be written or read back.
+     */
+    void stop(PrintStream out) throws IOException {
+        close();
+        summarize(this.file, out);
+    }
+
+    /**
+     * Stops recording and writes the recording to its file.
+     *
+     * @throws IOException Thrown if the recording can not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.recording.getState() == jdk.jfr.RecordingState.RUNNING) {
+            this.recording.stop();
+        }
+        this.recording.close();
+    }
+
+    /**
+     * Prints a summary of a recording.
+     *
+     * @param file recording to summarize.
+     * @param out  stream the summary is printed to.
+     * @throws IOException Thrown if the recording can not be read.
+     */
+    static void summarize(java.nio.file.Path file, PrintStream out) throws IOException {
+        Map<String, List<RecordedEvent>> queries = new TreeMap<>();
+        Map<String, List<RecordedEvent>> heap = new TreeMap<>();
+        Map<String, List<RecordedEvent>> mapIO = new TreeMap<>();
+        List<RecordedEvent> frames = new ArrayList<>();
+        List<RecordedEvent> samples = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            switch (event.getEventType().getName()) {
+                case "Pathfinding.Query":
+                    queries.computeIfAbsent(event.getString("algorithm"), k -> new ArrayList<>()).add(event);
+                    break;
+                case "Pathfinding.HeapOperation":
+                    heap.computeIfAbsent(event.getString("algorithm") + " " + event.getString("operation"),
+                            k -> new ArrayList<>()).add(event);
+                    break;
+                case "Pathfinding.MapIO":
+                    mapIO.computeIfAbsent(event.getString("operation"), k -> new ArrayList<>()).add(event);
+                    break;
+                case "Pathfinding.RenderFrame":
+                    frames.add(event);
+                    break;
+                case "jdk.ExecutionSample":
+                    samples.add(event);
+                    break;
+                default:
+            }
+        }
+
+        out.println("queries (ms)");
+        out.printf("  %-16s %8s %8s %10s %10s %10s %10s %12s%n", "algorithm", "count", "solved", "mean", "p50", "p99",
+                "max", "expansions");
+        List<RecordedEvent> slow = new ArrayList<>(); // Queries at or above the p99 of their algorithm
+        for (Map.Entry<String, List<RecordedEvent>> entry : queries.entrySet()) {
+            List<RecordedEvent> events = entry.getValue();
+            events.sort(Comparator.comparing(RecordedEvent::getDuration));
+            long solved = events.stream().filter(e -> e.getBoolean("solved")).count();
+            double expansions = events.stream().mapToInt(e -> e.getInt("expansions")).average().orElse(0);
+            RecordedEvent p99 = percentile(events, 0.99);
+            out.printf("  %-16s %8d %8d %10.3f %10.3f %10.3f %10.3f %12.0f%n", entry.getKey(), events.size(), solved,
+                    mean(events), millis(percentile(events, 0.5)), millis(p99), millis(events.get(events.size() - 1)),
+                    expansions);
+            for (RecordedEvent event : events) {
+                if (event.getDuration().compareTo(p99.getDuration()) >= 0) {
+                    slow.add(event);
+                }
+            }
+        }
+
+        slow.sort((x, y) -> y.getDuration().compareTo(x.getDuration()));
+        out.println("slowest queries");
+        for (RecordedEvent event : slow.subList(0, Math.min(TOP, slow.size()))) {
+            out.printf("  %-16s (%d, %d) -> (%d, %d) on %dx%d, %d expansions, %.3f ms%n", event.getString("algorithm"),
+                    event.getInt("startX"), event.getInt("startY"), event.getInt("endX"), event.getInt("endY"),
+                    event.getInt("width"), event.getInt("height"), event.getInt("expansions"), millis(event));
+        }
+
+        if (!samples.isEmpty()) {
+            Map<String, Integer> all = new HashMap<>(), spikes = new HashMap<>();
+            for (RecordedEvent sample : samples) {
+                if (sample.getStackTrace() == null || sample.getStackTrace().getFrames().isEmpty()) {
+                    continue;
+                }
+                String method = frame(sample.getStackTrace().getFrames().get(0));
+                all.merge(method, 1, Integer::sum);
+                if (during(sample, slow)) {
+                    spikes.merge(method, 1, Integer::sum);
+                }
+            }
+            printTop(out, "hottest methods, " + samples.size() + " samples", all);
+            printTop(out, "hottest methods during the slowest queries", spikes);
+        }
+
+        if (!heap.isEmpty()) {
+            out.println("sampled heap operations (ns)");
+            for (Map.Entry<String, List<RecordedEvent>> entry : heap.entrySet()) {
+                List<RecordedEvent> events = entry.getValue();
+                events.sort(Comparator.comparing(RecordedEvent::getDuration));
+                out.printf("  %-24s %8d samples, mean %8.0f, max %8d%n", entry.getKey(), events.size(),
+                        mean(events) * 1e6, events.get(events.size() - 1).getDuration().toNanos());
+            }
+        }
+        for (Map.Entry<String, List<RecordedEvent>> entry : mapIO.entrySet()) {
+            List<RecordedEvent> events = entry.getValue();
+            events.sort(Comparator.comparing(RecordedEvent::getDuration));
+            out.printf("map %-5s %8d files, mean %10.3f ms, max %10.3f ms%n", entry.getKey(), events.size(),
+                    mean(events), millis(events.get(events.size() - 1)));
+        }
+        if (!frames.isEmpty()) {
+            frames.sort(Comparator.comparing(RecordedEvent::getDuration));
+            out.printf("render   %8d frames, mean %10.3f ms, p99 %10.3f ms, max %10.3f ms%n", frames.size(),
+                    mean(frames), millis(percentile(frames, 0.99)), millis(frames.get(frames.size() - 1)));
+        }
+    }
+
+    /**
+     * Checks if an execution sample was taken on the thread of one of the given queries while it ran.
+     */
+    private static boolean during(RecordedEvent sample, List<RecordedEvent> queries) {
+        RecordedThread thread = sample.getThread("sampledThread");
+        if (thread == null) {
+            return false;
+        }
+        for (RecordedEvent query : queries) {
+            if (query.getThread() != null && query.getThread().getJavaThreadId() == thread.getJavaThreadId()
+                    && !sample.getStartTime().isBefore(query.getStartTime())
+                    && !sample.getStartTime().isAfter(query.getEndTime())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prints the methods seen most often.
+     */
+    private static void printTop(PrintStream out, String title, Map<String, Integer> counts) {
+        out.println(title);
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        counts.entrySet().stream().sorted(Map.Entry.<String, Integer>comparingByValue().reversed()).limit(TOP)
+                .forEach(e -> out.printf("  %6.1f%%  %s%n", 100.0 * e.getValue() / total, e.getKey()));
+    }
+
+    /**
+     * Names the method of a stack frame.
+     */
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    /**
+     * Returns the event at a percentile of events sorted by duration.
+     */
+    private static RecordedEvent percentile(List<RecordedEvent> sorted, double p) {
+        return sorted.get(Math.max(0, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+
+    /**
+     * Returns the mean duration of events in milliseconds.
+     */
+    private static double mean(List<RecordedEvent> events) {
+        return events.stream().mapToLong(e -> e.getDuration().toNanos()).average().orElse(0) / 1e6;
+    }
+
+    /**
+     * Returns the duration of an event in milliseconds.
+     */
+    private static double millis(RecordedEvent event) {
+        return event.getDuration().toNanos() / 1e6;
+    }
+
+    /**
+     * Main method summarizing recordings made by this class or with -XX:StartFlightRecording.
+     *
+     * @param args paths of the recordings.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: SearchProfiler <recording.jfr>...");
+            System.exit(2);
+        }
+        for (String fileName : args) {
+            System.out.println(fileName);
+            summarize(Paths.get(fileName), System.out);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package Pathfinding;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Per cell state of a search: the g cost, the parent and a few flag bits of every cell.
+ * <p>
+ * Every cell starts out untouched, with no g cost (Integer.MAX_VALUE), parent 0 and no flags. The first write to a
+ * cell records it in a touched list, so reset only clears the cells the last search used and the state can be reused
+ * for the next query without clearing the whole map. States are handed out and taken back by a SearchStatePool.
+ * <p>
+ * Cells are stored in pages of 4096 that are allocated the first time a cell in them is written, so a state only
+ * takes memory for the parts of the map its searches reached, not for the whole map. Two backends are available:
+ * arrays on the Java heap, and direct buffers outside of it, which keep the heap and the garbage collector's work
+ * small however far the searches reach.
+ */
+abstract class SearchState {
+    private static final int TOUCHED = 0x80; // Flag bit reserved for the touched list
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8; // Largest array most JVMs allocate
+    static final int PAGE_SHIFT = 12; // Cells per page
+    static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    private final int capacity;
+
+    private SearchState(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a state whose arrays live on the Java heap.
+     *
+     * @param capacity number of cells.
+     * @return the state.
+     */
+    static SearchState onHeap(int capacity) {
+        return new Heap(capacity);
+    }
+
+    /**
+     * Creates a state stored in direct buffers outside of the Java heap.
+     *
+     * @param capacity number of cells.
+     * @return the state.
+     */
+    static SearchState offHeap(int capacity) {
+        return new OffHeap(capacity);
+    }
+
+    /**
+     * Returns the number of pages needed for a number of cells.
+     */
+    private static int pages(int capacity) {
+        return (int) (((long) capacity + PAGE_MASK) >>> PAGE_SHIFT);
+    }
+
+    /**
+     * Returns the number of cells the state holds.
+     *
+     * @return capacity in cells.
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the g cost of a cell.
+     *
+     * @param cell index of the cell.
+     * @return g cost, Integer.MAX_VALUE if none has been set.
+     */
+    int g(int cell) {
+        int raw = rawG(cell);
+        return raw == 0 ? Integer.MAX_VALUE : raw - 1;
+    }
+
+    /**
+     * Sets the g cost of a cell.
+     *
+     * @param cell index of the cell.
+     * @param g    g cost, below Integer.MAX_VALUE.
+     */
+    void setG(int cell, int g) {
+        touch(cell);
+        setRawG(cell, g + 1);
+    }
+
+    /**
+     * Returns the parent of a cell.
+     *
+     * @param cell index of the cell.
+     * @return parent, 0 if none has been set.
+     */
+    abstract int parent(int cell);
+
+    /**
+     * Sets the parent of a cell.
+     *
+     * @param cell   index of the cell.
+     * @param parent parent of the cell.
+     */
+    void setParent(int cell, int parent) {
+        touch(cell);
+        setRawParent(cell, parent);
+    }
+
+    /**
+     * Returns the flags of a cell.
+     *
+     * @param cell index of the cell.
+     * @return flags in the low seven bits.
+     */
+    int flags(int cell) {
+        return rawFlags(cell) & ~TOUCHED;
+    }
+
+    /**
+     * Sets the flags of a cell.
+     *
+     * @param cell  index of the cell.
+     * @param flags flags, only the low seven bits are kept.
+     */
+    void setFlags(int cell, int flags) {
+        touch(cell);
+        setRawFlags(cell, (flags & ~TOUCHED) | TOUCHED);
+    }
+
+    /**
+     * Returns every touched cell to its untouched state.
+     */
+    abstract void reset();
+
+    /**
+     * Returns the number of cells touched since the last reset.
+     *
+     * @return number of touched cells.
+     */
+    abstract int touched();
+
+    /**
+     * Records the first write to a cell.
+     */
+    private void touch(int cell) {
+        int flags = rawFlags(cell);
+        if ((flags & TOUCHED) == 0) {
+            setRawFlags(cell, flags | TOUCHED);
+            addTouched(cell);
+        }
+    }
+
+    // Raw accessors, g is stored plus one so zeroed memory reads as no g cost
+
+    abstract int rawG(int cell);
+
+    abstract void setRawG(int cell, int value);
+
+    abstract void setRawParent(int cell, int value);
+
+    abstract int rawFlags(int cell);
+
+    abstract void setRawFlags(int cell, int value);
+
+    abstract void addTouched(int cell);
+
+    /**
+     * State kept in pages of arrays on the heap.
+     */
+    private static final class Heap extends SearchState {
+        private final int[][] g, parent;
+        private final byte[][] flags;
+        private int[] touchedCells = new int[1024];
+        private int touchedCount = 0;
+
+        Heap(int capacity) {
+            super(capacity);
+            this.g = new int[pages(capacity)][];
+            this.parent = new int[pages(capacity)][];
+            this.flags = new byte[pages(capacity)][];
+        }
+
+        @Override
+        int parent(int cell) {
+            int[] page = parent[cell >>> PAGE_SHIFT];
+            return page == null ? 0 : page[cell & PAGE_MASK];
+        }
+
+        @Override
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                int cell = touchedCells[i], page = cell >>> PAGE_SHIFT, offset = cell & PAGE_MASK;
+                g[page][offset] = 0;
+                parent[page][offset] = 0;
+                flags[page][offset] = 0;
+            }
+            touchedCount = 0;
+        }
+
+        @Override
+        int touched() {
+            return touchedCount;
+        }
+
+        @Override
+        int rawG(int cell) {
+            int[] page = g[cell >>> PAGE_SHIFT];
+            return page == null ? 0 : page[cell & PAGE_MASK];
+        }
+
+        @Override
+        void setRawG(int cell, int value) {
+            g[cell >>> PAGE_SHIFT][cell & PAGE_MASK] = value;
+        }
+
+        @Override
+        void setRawParent(int cell, int value) {
+            parent[cell >>> PAGE_SHIFT][cell & PAGE_MASK] = value;
+        }
+
+        @Override
+        int rawFlags(int cell) {
+            byte[] page = flags[cell >>> PAGE_SHIFT];
+            return page == null ? 0 : page[cell & PAGE_MASK] & 0xFF;
+        }
+
+        @Override
+        void setRawFlags(int cell, int value) {
+            int page = cell >>> PAGE_SHIFT;
+            if (flags[page] == null) {
+                // Every write starts by setting the touched flag, so all three pages are allocated here
+                g[page] = new int[PAGE_MASK + 1];
+                parent[page] = new int[PAGE_MASK + 1];
+                flags[page] = new byte[PAGE_MASK + 1];
+            }
+            flags[page][cell & PAGE_MASK] = (byte) value;
+        }
+
+        @Override
+        void addTouched(int cell) {
+            if (touchedCount == touchedCells.length) {
+                // A cell is only touched once, so the list never needs to outgrow the state
+                int length = (int) Math.min(Math.min(2L * touchedCount, capacity()), MAX_ARRAY_LENGTH);
+                if (length <= touchedCount) {
+                    throw new IllegalStateException("touched list is full at " + touchedCount + " cells.");
+                }
+                touchedCells = Arrays.copyOf(touchedCells, length);
+            }
+            touchedCells[touchedCount++] = cell;
+        }
+    }
+
+    /**
+     * State kept in pages of direct buffers. Each cell is a 12 byte record of g, parent and flags, so the three values
+     * of a cell share a cache line. The touched list is split into pages as well, so it never has to be copied to
+     * grow.
+     */
+    private static final class OffHeap extends SearchState {
+        private static final int RECORD = 12;
+        private static final int TOUCHED_SHIFT = 16; // Touched cells per page of the touched list, 256 KB
+        private static final int TOUCHED_MASK = (1 << TOUCHED_SHIFT) - 1;
+
+        private final ByteBuffer[] pages;
+        private final IntBuffer[] touchedPages;
+        private int touchedCount = 0;
+
+        OffHeap(int capacity) {
+            super(capacity);
+            this.pages = new ByteBuffer[pages(capacity)];
+            this.touchedPages = new IntBuffer[(int) (((long) capacity + TOUCHED_MASK) >>> TOUCHED_SHIFT)];
+        }
+
+        @Override
+        int parent(int cell) {
+            ByteBuffer page = pages[cell >>> PAGE_SHIFT];
+            return page == null ? 0 : page.getInt((cell & PAGE_MASK) * RECORD + 4);
+        }
+
+        @Override
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                int cell = touchedPages[i >>> TOUCHED_SHIFT].get(i & TOUCHED_MASK);
+                ByteBuffer page = pages[cell >>> PAGE_SHIFT];
+                int offset = (cell & PAGE_MASK) * RECORD;
+                page.putLong(offset, 0);
+                page.putInt(offset + 8, 0);
+            }
+            touchedCount = 0;
+        }
+
+        @Override
+        int touched() {
+            return touchedCount;
+        }
+
+        @Override
+        int rawG(int cell) {
+            ByteBuffer page = pages[cell >>> PAGE_SHIFT];
+            return page == null ? 0 : page.getInt((cell & PAGE_MASK) * RECORD);
+        }
+
+        @Override
+        void setRawG(int cell, int value) {
+            pages[cell >>> PAGE_SHIFT].putInt((cell & PAGE_MASK) * RECORD, value);
+        }
+
+        @Override
+        void setRawParent(int cell, int value) {
+            pages[cell >>> PAGE_SHIFT].putInt((cell & PAGE_MASK) * RECORD + 4, value);
+        }
+
+        @Override
+        int rawFlags(int cell) {
+            ByteBuffer page = pages[cell >>> PAGE_SHIFT];
+            return page == null ? 0 : page.get((cell & PAGE_MASK) * RECORD + 8) & 0xFF;
+        }
+
+        @Override
+        void setRawFlags(int cell, int value) {
+            int page = cell >>> PAGE_SHIFT;
+            if (pages[page] == null) {
+                // Direct buffers start zeroed, which is the untouched state
+                pages[page] = ByteBuffer.allocateDirect((PAGE_MASK + 1) * RECORD).order(ByteOrder.nativeOrder());
+            }
+            pages[page].put((cell & PAGE_MASK) * RECORD + 8, (byte) value);
+        }
+
+        @Override
+        void addTouched(int cell) {
+            int page = touchedCount >>> TOUCHED_SHIFT;
+            if (touchedPages[page] == null) {
+                // Pages are kept across resets, so a reused state allocates nothing
+                touchedPages[page] = ByteBuffer.allocateDirect((TOUCHED_MASK + 1) * 4).order(ByteOrder.nativeOrder())
+                        .asIntBuffer();
+            }
+            touchedPages[page].put(touchedCount & TOUCHED_MASK, cell);
+            touchedCount++;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package Pathfinding;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of search states reused across queries, so a query on a large map does not allocate and clear state for every
+ * cell of the map.
+ * <p>
+ * A state is taken with acquire and given back with release once the path has been read from it. Released states are
+ * reset through their touched cells and kept until the pool holds maxIdle of them; direct buffers of off-heap states
+ * that are not kept are freed by the garbage collector.
+ */
+final class SearchStatePool {
+    static final SearchStatePool DEFAULT = new SearchStatePool(false, Runtime.getRuntime().availableProcessors());
+
+    private final boolean offHeap;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<SearchState> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * Creates a pool.
+     *
+     * @param offHeap true to store states outside of the Java heap.
+     * @param maxIdle most released states kept for reuse, usually the number of threads running queries.
+     */
+    SearchStatePool(boolean offHeap, int maxIdle) {
+        this.offHeap = offHeap;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes a state with room for at least the given number of cells, creating one if no idle state is large enough.
+     *
+     * @param capacity number of cells needed.
+     * @return an untouched state.
+     */
+    SearchState acquire(int capacity) {
+        for (Iterator<SearchState> it = idle.iterator(); it.hasNext(); ) {
+            SearchState state = it.next();
+            if (state.capacity() >= capacity && idle.remove(state)) {
+                idleCount.decrementAndGet();
+                return state;
+            }
+        }
+        created.incrementAndGet();
+        return offHeap ? SearchState.offHeap(capacity) : SearchState.onHeap(capacity);
+    }
+
+    /**
+     * Resets a state and keeps it for reuse if the pool has room.
+     *
+     * @param state state taken from this pool, it must not be used afterwards.
+     */
+    void release(SearchState state) {
+        state.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.add(state);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of states the pool has created, which stays at the number of concurrent queries once the
+     * pool is warm.
+     *
+     * @return number of states created.
+     */
+    int getCreated() {
+        return created.get();
+    }
+}
@@ -0,0 +1,229 @@
+package Pathfinding;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Lazy Theta*, an any-angle variant of A* that lets a node's parent be any visible ancestor instead of an adjacent
+ * cell. Line of sight is assumed when a node is generated and only checked once the node is expanded, so most
+ * generated nodes never cost a line-of-sight check.
+ */
+public class ThetaStar extends Algorithm {
+    private final Map<Integer, Node> nodeMap = new HashMap<>(); // Nodes reached so far by packed cell index
+    private final PriorityQueue<Entry> open = new PriorityQueue<>();
+    private Node current;
+    private final Color openColor = Color.green;
+    private final Color closedColor = Color.red;
+
+    /**
+     * Constructor for algorithm
+     *
+     * @param panel              panel to be used by algorithm
+     * @param updateWhileRunning if the panel will be updated while running
+     */
+    public ThetaStar(mapPanel panel, boolean updateWhileRunning) {
+        super(panel, updateWhileRunning);
+        this.setup();
+    }
+
+    /**
+     * Constructor for running the algorithm without a panel.
+     *
+     * @param walls walls of the map, any grid backend.
+     * @param start starting position.
+     * @param end   ending position.
+     */
+    public ThetaStar(Grid walls, Point start, Point end) {
+        super(walls, start, end);
+        this.setup();
+    }
+
+    /**
+     * Adds the starting node to the open set.
+     */
+    private void setup() {
+        Node first = this.node(start.x, start.y);
+        first.gCost = 0;
+        first.parent = first;
+        this.open.add(new Entry(first));
+    }
+
+    /**
+     * Generate and print path to panel
+     */
+    public void generatePath() throws IllegalArgumentException {
+        this.current = null;
+        while (!this.open.isEmpty()) {
+            Entry entry = this.open.poll();
+            // Skip entries that were superseded by a cheaper path or already expanded
+            if (entry.node.closed || entry.fCost != entry.node.getFCost()) {
+                continue;
+            }
+            this.current = entry.node;
+            this.setVertex(this.current);
+            this.current.closed = true;
+            this.expansions++;
+            this.setPosition(this.current.position, closedColor);
+
+            if (this.current.position.equals(this.end)) {
+                break;
+            }
+            for (int m = this.walls.neighbors(this.current.position.x, this.current.position.y); m != 0; m &= m - 1) {
+                int d = Integer.numberOfTrailingZeros(m);
+                Node n = this.node(this.current.position.x + Path.DX[d], this.current.position.y + Path.DY[d]);
+                if (n.closed) {
+                    continue;
+                }
+                // Lazily assume the current node's parent can see the neighbor
+                Node parent = this.current.parent;
+                double newCost = parent.gCost + euclideanBetween(parent.position, n.position);
+                if (newCost < n.gCost) {
+                    if (n.parent == null) {
+                        this.setPosition(n.position, openColor);
+                    }
+                    n.gCost = newCost;
+                    n.parent = parent;
+                    this.open.add(new Entry(n));
+                }
+            }
+            if (this.updateWhileRunning) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    this.stopPanel();
+                    return;
+                }
+            }
+        }
+        if (this.current == null || !this.current.position.equals(this.end)) {
+            this.stopPanel();
+            this.setPosition(this.start, mapPanel.START_COLOR);
+            this.setPosition(this.end, mapPanel.END_COLOR);
+            this.repaintPanel();
+            throw new IllegalArgumentException("course cannot be solved.");
+        }
+        this.paintPath();
+    }
+
+    /**
+     * Returns the node at the given position, creating it the first time it is reached so only the cells the search
+     * touches are allocated.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return the node.
+     */
+    private Node node(int x, int y) {
+        return this.nodeMap.computeIfAbsent(Path.index(x, y, this.size.y), k -> new Node(new Point(x, y), end));
+    }
+
+    /**
+     * Checks the assumed line of sight between a node and its parent, falling back to the best expanded neighbor when
+     * the line is blocked.
+     *
+     * @param n node being expanded.
+     */
+    private void setVertex(Node n) {
+        if (n.parent == n || this.walls.lineOfSight(n.parent.position.x, n.parent.position.y, n.position.x, n.position.y)) {
+            return;
+        }
+        n.gCost = Double.MAX_VALUE;
+        for (int m = this.walls.neighbors(n.position.x, n.position.y); m != 0; m &= m - 1) {
+            int d = Integer.numberOfTrailingZeros(m);
+            Node neighbor = this.node(n.position.x + Path.DX[d], n.position.y + Path.DY[d]);
+            if (neighbor.closed) {
+                double newCost = neighbor.gCost + euclideanBetween(neighbor.position, n.position);
+                if (newCost < n.gCost) {
+                    n.gCost = newCost;
+                    n.parent = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to store the waypoints generated and paint the lines between them to the panel.
+     */
+    public void paintPath() {
+        this.stopPanel();
+        int length = 1;
+        for (Node n = this.current; n.parent != n; n = n.parent) {
+            length++;
+        }
+        int[] cells = new int[length];
+        for (Node n = this.current; ; n = n.parent) {
+            cells[--length] = Path.index(n.position.x, n.position.y, this.size.y);
+            if (n.parent == n) {
+                break;
+            }
+        }
+        this.path = new Path(cells, this.size.y);
+        Path steps = this.path.expand();
+        for (int i = 1; i < steps.length(); i++) {
+            this.setPosition(steps.get(i), Color.blue);
+        }
+        this.setPosition(this.start, mapPanel.START_COLOR);
+        this.setPosition(this.end, mapPanel.END_COLOR);
+        this.repaintPanel();
+    }
+
+
+    /**
+     * Returns the straight line cost of the path of waypoints.
+     *
+     * @return cost of the path.
+     */
+    @Override
+    public double getPathCost() {
+        return this.path.getEuclideanCost();
+    }
+
+
+    static class Node {
+        private final Point position; //location of the Node on a 2d plane.
+        private final double hCost; //straight line distance from end node
+        private double gCost = Double.MAX_VALUE; //distance from starting node
+        private boolean closed = false; //boolean value to determine if the node has been expanded
+        private Node parent = null; // parent of the node, the start node is its own parent.
+
+        /**
+         * Constructor for a node with straight line distance to ending node.
+         *
+         * @param position Location the node is located on a 2-d plane.
+         * @param target   Location of the target to determine hcost(distance from the end node)
+         */
+        Node(Point position, Point target) {
+            this.position = position;
+            this.hCost = euclideanBetween(position, target);
+        }
+
+        /**
+         * Calculates the f-cost from the h and g cost.
+         *
+         * @return The F-cost which is the h-cost + the g-cost.
+         */
+        double getFCost() {
+            return hCost + gCost;
+        }
+    }
+
+    /**
+     * Entry in the open set, holding the f-cost the node had when it was queued so stale entries can be skipped.
+     */
+    static class Entry implements Comparable<Entry> {
+        private final Node node;
+        private final double fCost;
+
+        Entry(Node node) {
+            this.node = node;
+            this.fCost = node.getFCost();
+        }
+
+        @Override
+        public int compareTo(Entry entry) {
+            return Double.compare(this.fCost, entry.fCost);
+        }
+    }
+}
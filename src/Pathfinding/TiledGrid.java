@@ -0,0 +1,238 @@
+package Pathfinding;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grid backed by a tile file that is paged into memory on demand, so maps larger than the heap can be searched.
+ * <p>
+ * The map is split into square tiles of tileSize x tileSize cells. Each tile is stored as a bitset of walls, row by
+ * row, and only the most recently used tiles are kept in memory. Cells past the edge of the map in the last row and
+ * column of tiles are stored as walls.
+ * <p>
+ * Each thread remembers the tile it read last, so a search that stays in one tile does not touch shared state. The
+ * cache is split into stripes by tile, each with its own lock and share of the tiles, so threads reading different
+ * tiles rarely wait for each other.
+ * <p>
+ * File layout: int magic, int width, int height, int tileSize, then every tile's longs with tiles ordered row by row.
+ */
+public class TiledGrid implements Grid, Closeable {
+    static final int MAGIC = 0x50544731; // "PTG1"
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_STRIPES = 16;
+
+    private final FileChannel channel;
+    private final int width, height, tileSize, tileShift, tilesPerRow, longsPerTile;
+    private final Map<Integer, Tile>[] stripes; // Tile id modulo the number of stripes picks the stripe
+    private final ThreadLocal<Tile[]> last = ThreadLocal.withInitial(() -> new Tile[1]); // Tile each thread read last
+    private final LongAdder loads = new LongAdder();
+
+    /**
+     * Opens a tile file.
+     *
+     * @param fileName   path of the tile file.
+     * @param cacheTiles number of tiles kept in memory, rounded up to a multiple of the number of stripes.
+     * @throws IOException Thrown if file can not be read or is not a tile file.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TiledGrid(String fileName, int cacheTiles) throws IOException {
+        this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            channel.close();
+            throw new IOException(fileName + " is not a tile file.");
+        }
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.tileSize = header.getInt();
+        this.tileShift = Integer.numberOfTrailingZeros(tileSize);
+        this.tilesPerRow = (width + tileSize - 1) >> tileShift;
+        this.longsPerTile = tileSize * tileSize / 64;
+        this.stripes = new Map[Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, cacheTiles)))];
+        int stripeTiles = (cacheTiles + stripes.length - 1) / stripes.length;
+        for (int i = 0; i < stripes.length; i++) {
+            this.stripes[i] = new LinkedHashMap<>(stripeTiles * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Tile> eldest) {
+                    return size() > stripeTiles;
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the width of the grid.
+     *
+     * @return width of the grid.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     *
+     * @return height of the grid.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of tiles read from the file since the grid was opened.
+     *
+     * @return number of tile loads.
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Checks if the given cell is a wall, loading its tile if it is not in memory.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return true if the cell is a wall or off the grid.
+     */
+    @Override
+    public boolean isWall(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return true;
+        }
+        int id = (y >> tileShift) * tilesPerRow + (x >> tileShift);
+        Tile[] mine = last.get();
+        Tile tile = mine[0];
+        if (tile == null || tile.id != id) {
+            tile = tile(id);
+            mine[0] = tile;
+        }
+        int bit = ((y & (tileSize - 1)) << tileShift) | (x & (tileSize - 1));
+        return (tile.bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Returns a tile from its stripe of the cache, reading it from the file if needed. Only the stripe is locked, and
+     * the file is read with positional reads that threads can make at the same time.
+     *
+     * @param id index of the tile.
+     * @return the tile.
+     */
+    private Tile tile(int id) {
+        Map<Integer, Tile> cache = stripes[id & (stripes.length - 1)];
+        synchronized (cache) {
+            Tile tile = cache.get(id);
+            if (tile != null) {
+                return tile;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(longsPerTile * 8);
+        try {
+            readFully(buffer, HEADER_BYTES + (long) id * longsPerTile * 8);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("tile " + id + " could not be read.", exception);
+        }
+        buffer.flip();
+        long[] bits = new long[longsPerTile];
+        buffer.asLongBuffer().get(bits);
+        loads.increment();
+        synchronized (cache) {
+            // Another thread may have loaded the same tile meanwhile, keep the one already cached
+            Tile loaded = new Tile(id, bits), cached = cache.putIfAbsent(id, loaded);
+            return cached != null ? cached : loaded;
+        }
+    }
+
+    /**
+     * Fills a buffer from the file starting at the given position.
+     *
+     * @param buffer   buffer to fill.
+     * @param position position in the file.
+     * @throws IOException Thrown if the file ends before the buffer is full.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("tile file ended early.");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Closes the tile file.
+     *
+     * @throws IOException Thrown if the file can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes any grid to a tile file, one row of tiles at a time so only that row is held in memory.
+     *
+     * @param source   grid to write.
+     * @param fileName path of the tile file.
+     * @param tileSize width and height of a tile, a power of two of at least 8.
+     * @throws IOException Thrown if file can not be written to.
+     */
+    public static void write(Grid source, String fileName, int tileSize) throws IOException {
+        if (tileSize < 8 || Integer.bitCount(tileSize) != 1) {
+            throw new IllegalArgumentException("tile size must be a power of two of at least 8.");
+        }
+        int tilesPerRow = (source.getWidth() + tileSize - 1) / tileSize;
+        int tileRows = (source.getHeight() + tileSize - 1) / tileSize;
+        int longsPerTile = tileSize * tileSize / 64;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(source.getWidth());
+            out.writeInt(source.getHeight());
+            out.writeInt(tileSize);
+            long[][] row = new long[tilesPerRow][longsPerTile];
+            for (int ty = 0; ty < tileRows; ty++) {
+                for (long[] tile : row) {
+                    Arrays.fill(tile, 0);
+                }
+                for (int j = 0; j < tileSize; j++) {
+                    for (int i = 0; i < tilesPerRow * tileSize; i++) {
+                        // isWall reports cells past the edge of the map as walls
+                        if (source.isWall(i, ty * tileSize + j)) {
+                            int bit = j * tileSize + (i % tileSize);
+                            row[i / tileSize][bit >>> 6] |= 1L << bit;
+                        }
+                    }
+                }
+                for (long[] tile : row) {
+                    for (long word : tile) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A tile held in memory, immutable once loaded so it can be read without locking.
+     */
+    private static class Tile {
+        final int id;
+        final long[] bits;
+
+        Tile(int id, long[] bits) {
+            this.id = id;
+            this.bits = bits;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package Pathfinding;
+
+/**
+ * Bitset of the walls in a map, one bit per cell packed into 64-bit words row by row.
+ * <p>
+ * The grid is padded with a border of walls one cell wide, so the eight cells around any cell on the map can be read
+ * without bounds checks and the valid moves out of a cell are computed with a few shifts and masks.
+ */
+public class WallGrid implements Grid {
+    private final long[] bits;
+    private final int width, height, wordsPerRow;
+
+    /**
+     * Creates a wall bitset from an integer map.
+     *
+     * @param map integer map, 1 marks a wall.
+     */
+    public WallGrid(int[][] map) {
+        this.width = map.length;
+        this.height = map[0].length;
+        this.wordsPerRow = (width + 2 + 63) >>> 6;
+        this.bits = new long[wordsPerRow * (height + 2)];
+        // Fill the padding rows and columns with walls
+        for (int i = -1; i <= width; i++) {
+            setWall(i, -1);
+            setWall(i, height);
+        }
+        for (int j = 0; j < height; j++) {
+            setWall(-1, j);
+            setWall(width, j);
+            for (int i = 0; i < width; i++) {
+                if (map[i][j] == 1) {
+                    setWall(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a cell as a wall, coordinates may be on the padded border.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     */
+    private void setWall(int x, int y) {
+        int bit = x + 1;
+        bits[(y + 1) * wordsPerRow + (bit >>> 6)] |= 1L << bit;
+    }
+
+    /**
+     * Returns the width of the grid.
+     *
+     * @return width of the grid.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     *
+     * @return height of the grid.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if the given cell is a wall, cells outside of the grid are treated as walls.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return true if the cell is a wall or off the grid.
+     */
+    @Override
+    public boolean isWall(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return true;
+        }
+        return wall(x, y);
+    }
+
+    /**
+     * Checks if the given cell is a wall without bounds checks, coordinates may be on the padded border.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @return true if the cell is a wall.
+     */
+    private boolean wall(int x, int y) {
+        int bit = x + 1;
+        return (bits[(y + 1) * wordsPerRow + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Reads the wall bits of cells x - 1, x and x + 1 on row y into the low three bits of an int.
+     *
+     * @param x x coordinate of the middle cell.
+     * @param y y coordinate of the row, may be on the padded border.
+     * @return three wall bits, bit 0 is cell x - 1.
+     */
+    private int window(int x, int y) {
+        int index = (y + 1) * wordsPerRow + (x >>> 6);
+        int shift = x & 63;
+        long word = bits[index] >>> shift;
+        // The window straddles two words
+        if (shift > 61) {
+            word |= bits[index + 1] << (64 - shift);
+        }
+        return (int) word & 7;
+    }
+
+    /**
+     * Calculates the moves that can be made out of a cell from the three rows of wall bits around it.
+     *
+     * @param x x coordinate, must be on the map.
+     * @param y y coordinate, must be on the map.
+     * @return mask with bit d set if the move (Path.DX[d], Path.DY[d]) is valid.
+     */
+    @Override
+    public int neighbors(int x, int y) {
+        int up = ~window(x, y - 1);
+        int middle = ~window(x, y);
+        int down = ~window(x, y + 1);
+        int east = (middle >>> 2) & 1;
+        int south = (down >>> 1) & 1;
+        int west = middle & 1;
+        int north = (up >>> 1) & 1;
+        int southEast = (down >>> 2) & (east | south) & 1;
+        int southWest = down & (west | south) & 1;
+        int northWest = up & (west | north) & 1;
+        int northEast = (up >>> 2) & (east | north) & 1;
+        return east | southEast << 1 | south << 2 | southWest << 3 | west << 4 | northWest << 5 | north << 6 | northEast << 7;
+    }
+}
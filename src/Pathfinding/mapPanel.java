@@ -0,0 +1,364 @@
+package Pathfinding;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import javax.swing.*;
+
+class mapPanel extends JPanel implements MouseMotionListener, MouseListener, Runnable {
+    private Color[][] map;
+    // Walls and index are only changed by edits on the event dispatch thread, algorithms only paint colors
+    private volatile GridSnapshot walls; // Walls of the map, replaced by a new version on every edit
+    private MapIndex index; // Start, end and wall metadata, updated with every edit
+    private final int scale;
+    public static final Color BORDER_COLOR = Color.black;
+    public static final Color EMPTY_COLOR = Color.white;
+    public static final Color WALL_COLOR = Color.black;
+    public static final Color START_COLOR = Color.orange;
+    public static final Color END_COLOR = Color.cyan;
+
+    /**
+     * Constructor sets panel size and initializes map.
+     *
+     * @param mapSize the size of the map as ints.
+     * @param scale   the scale of the boxes in pixels.
+     */
+    public mapPanel(Point mapSize, int scale) {
+        setPreferredSize(new Dimension(mapSize.x * scale, mapSize.y * scale));
+        this.scale = scale;
+        this.map = new Color[mapSize.x][mapSize.y];
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                map[i][j] = EMPTY_COLOR;
+            }
+        }
+        this.walls = GridSnapshot.empty(mapSize.x, mapSize.y);
+        this.index = new MapIndex(mapSize.x, mapSize.y);
+    }
+
+    public String validateFilename(String fileName) throws IOException{
+        fileName = fileName.trim().toLowerCase().replace(" ", "_");
+        if (fileName.endsWith(".map")) {
+            if (System.getProperty("os.name").toLowerCase().equals("win"))
+                fileName = "maps\\" + fileName;
+            else
+                fileName = "maps/" + fileName;
+        } else {
+            if (System.getProperty("os.name").toLowerCase().equals("win"))
+                fileName = "maps\\" + fileName + ".map";
+            else
+                fileName = "maps/" + fileName + ".map";
+        }
+        return fileName;
+    }
+
+    /**
+     * Function to save the current state of the MapPanel to the maps directory.
+     *
+     * @param fileName Desired filename (if it does not contain ".map" it will be appended).
+     * @throws IOException Thrown if file can not be written to.
+     */
+    public void save(String fileName) throws IOException {
+        fileName = validateFilename(fileName);
+        SearchEvents.MapIO event = SearchEvents.mapIO("write", fileName);
+        BufferedWriter br = new BufferedWriter(new FileWriter(fileName));
+        br.write(map.length + "," + map[0].length + "\n");
+        int[][] intmap = getIntMap();
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                br.write(intmap[i][j] + ",");
+            }
+            br.write("\n");
+        }
+        br.close();
+        event.width = map.length;
+        event.height = map[0].length;
+        event.commit();
+    }
+
+    /**
+     * Loads the state of a previous MapPanel from a file in the maps directory.
+     *
+     * @param fileName Desired filename (if it does not contain ".map" it will be appended).
+     * @throws IOException Thrown if file can not be read.
+     */
+    public void load(String fileName) throws IOException {
+        fileName = validateFilename(fileName);
+        int[][] intMap = MapFile.read(fileName);
+        this.map = new Color[intMap.length][intMap[0].length];
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                if (intMap[i][j] == 1) {
+                    map[i][j] = WALL_COLOR;
+                } else if (intMap[i][j] == 2) {
+                    map[i][j] = START_COLOR;
+                } else if (intMap[i][j] == 3) {
+                    map[i][j] = END_COLOR;
+                } else {
+                    map[i][j] = EMPTY_COLOR;
+                }
+            }
+        }
+        this.walls = GridSnapshot.of(intMap);
+        this.index = MapIndex.of(intMap);
+        paintComponent(getGraphics());
+    }
+    
+    /**
+     * Method to allow MapPanel to be run as a thread, so it can update map for the running algorithm.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            SearchEvents.RenderFrame frame = new SearchEvents.RenderFrame();
+            frame.begin();
+            paintComponent(this.getGraphics());
+            frame.width = map.length;
+            frame.height = map[0].length;
+            frame.commit();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Method to set the x, y position in the map to the provided color. Only the color is changed, the walls, start
+     * and end stay as they are, so running algorithms can paint from any thread.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @param c Color to be set.
+     */
+    public void setPosition(int x, int y, Color c) {
+        map[x][y] = c;
+    }
+
+    /**
+     * Places a wall, the start or the end, or clears a cell, updating the walls and the index. Edits come from the
+     * user and are made on the event dispatch thread.
+     *
+     * @param x x coordinate.
+     * @param y y coordinate.
+     * @param c Color to be set, WALL_COLOR, START_COLOR, END_COLOR or any other color for an empty cell.
+     */
+    private void edit(int x, int y, Color c) {
+        int code = code(c);
+        if ((code == MapIndex.WALL) != index.isWall(x, y)) {
+            walls = walls.withWall(x, y, code == MapIndex.WALL);
+        }
+        index.set(x, y, code);
+        map[x][y] = c;
+    }
+
+    /**
+     * Returns the integer map code of a color.
+     *
+     * @param c color of a cell.
+     * @return 1 for walls, 2 for the start, 3 for the end and 0 for anything else.
+     */
+    private static int code(Color c) {
+        if (WALL_COLOR.equals(c)) {
+            return MapIndex.WALL;
+        } else if (START_COLOR.equals(c)) {
+            return MapIndex.START;
+        } else if (END_COLOR.equals(c)) {
+            return MapIndex.END;
+        }
+        return MapIndex.EMPTY;
+    }
+
+    /**
+     * Method to set the map to the provided color at the give point.
+     *
+     * @param p Point to be set.
+     * @param c Color to be set.
+     */
+    public void setPosition(Point p, Color c) {
+        setPosition(p.x, p.y, c);
+    }
+
+    /**
+     * Returns the current version of the walls. The snapshot never changes, edits made after it is returned create a
+     * new version, so a running algorithm can keep using it without copying the map.
+     *
+     * @return snapshot of the walls.
+     */
+    public GridSnapshot snapshot() {
+        return walls;
+    }
+
+    /**
+     * Returns position of starting node.
+     *
+     * @return position of starting node.
+     */
+    public Point getStart() {
+        return index.getStart();
+    }
+
+    /**
+     * Returns position of ending node.
+     *
+     * @return position of ending node.
+     */
+    public Point getEnd() {
+        return index.getEnd();
+    }
+
+    /**
+     * Returns a int map of the panel.
+     * <p>
+     * map key: 0 = unoccupied, 1 = wall, 2 = start position, 3 = end position
+     *
+     * @return integer map representing current status of MapPanel.
+     */
+    public int[][] getIntMap() {
+        return index.toIntMap();
+    }
+
+    /**
+     * Clears entire panel.
+     */
+    public void clearMap() {
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                map[i][j] = EMPTY_COLOR;
+            }
+        }
+        this.walls = GridSnapshot.empty(map.length, map[0].length);
+        this.index = new MapIndex(map.length, map[0].length);
+        this.paintComponent(this.getGraphics());
+    }
+
+    /**
+     * Clears paths from panel excluding walls and the starting and ending positions.
+     */
+    public void clearPaths() {
+        for (int i = 0; i < map.length; i++) {
+            for (int j = 0; j < map[0].length; j++) {
+                if (!START_COLOR.equals(map[i][j]) && !END_COLOR.equals(map[i][j]) && !WALL_COLOR.equals(map[i][j])) {
+                    map[i][j] = EMPTY_COLOR;
+                }
+            }
+        }
+        // An algorithm may have painted over the start or end
+        Point start = index.getStart(), end = index.getEnd();
+        if (start != null) {
+            map[start.x][start.y] = START_COLOR;
+        }
+        if (end != null) {
+            map[end.x][end.y] = END_COLOR;
+        }
+        this.paintComponent(this.getGraphics());
+    }
+
+    /**
+     * Method that alows drawing on the MapPanel, handles its own painting as thread will not be running.
+     *
+     * @param e MouseEvent to get the position of the cursor.
+     */
+    private void mouseAction(MouseEvent e) {
+        Point p = new Point();
+        p.x = e.getPoint().x / scale;
+        p.y = e.getPoint().y / scale;
+        if (p.x >= 0 && p.x < map.length && p.y >= 0 && p.y < map[0].length) {
+            // Only one start and one end, the index knows where the old one is
+            Point old = GUI.currentColor == START_COLOR ? index.getStart()
+                    : GUI.currentColor == END_COLOR ? index.getEnd() : null;
+            if (old != null) {
+                edit(old.x, old.y, EMPTY_COLOR);
+            }
+            edit(p.x, p.y, GUI.currentColor);
+            paintComponent(getGraphics());
+        }
+    }
+
+    /**
+     * Method to paint entire Map Panel.
+     *
+     * @param g graphics to paint with.
+     * @apiNote should be replaced with version that only paints changed squares.
+     */
+    @Override
+    public void paintComponent(Graphics g) {
+        for (int i = 0; i < this.map.length; i++) {
+            for (int j = 0; j < this.map[0].length; j++) {
+                g.setColor(map[i][j]);
+                g.fillRect(i * this.scale, j * this.scale, this.scale, this.scale);
+                g.setColor(BORDER_COLOR);
+                g.drawRect(i * scale, j * scale, scale, scale);
+            }
+        }
+    }
+
+    /**
+     * Passes to mouseAction.
+     *
+     * @param e MouseEvent to pass to mouseAction.
+     */
+    @Override
+    public void mousePressed(MouseEvent e) {
+        mouseAction(e);
+    }
+
+    /**
+     * Passes to mouseAction.
+     *
+     * @param e MouseEvent to pass to mouseAction.
+     */
+    @Override
+    public void mouseDragged(MouseEvent e) {
+        mouseAction(e);
+    }
+
+    /**
+     * Not used.
+     *
+     * @param e not used.
+     */
+    @Override
+    public void mouseMoved(MouseEvent e) {
+    }
+
+    /**
+     * Not used.
+     *
+     * @param e not used.
+     */
+    @Override
+    public void mouseClicked(MouseEvent e) {
+    }
+
+    /**
+     * Not used.
+     *
+     * @param e not used.
+     */
+    @Override
+    public void mouseReleased(MouseEvent e) {
+
+    }
+
+    /**
+     * Not used.
+     *
+     * @param e not used.
+     */
+    @Override
+    public void mouseEntered(MouseEvent e) {
+    }
+
+    /**
+     * Not used.
+     *
+     * @param e not used.
+     */
+    @Override
+    public void mouseExited(MouseEvent e) {
+    }
+
+}
+